@@ -0,0 +1,135 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class ARCPolicy implements ReplacementPolicy {
+
+	/*
+	 * Adaptive replacement cache (Megiddo and Modha). T1 holds pages seen once recently, T2 pages
+	 * seen at least twice. B1 and B2 remember the pages evicted from T1 and T2, and a fault on
+	 * one of them moves the target size p of T1 towards the list that would have kept the page.
+	 * */
+
+	public static final int T1 = 0;
+	public static final int T2 = 1;
+	public static final int B1 = 2;
+	public static final int B2 = 3;
+
+	public PageLists lists;
+	public int c;	//number of frames
+	public int p;	//target size of T1
+	public ColdPages cold;	//Pages loaded ahead of their use, null until the first one
+
+	public ARCPolicy(int pages,int frames){
+		this.lists = new PageLists(pages,4);
+		this.c = frames;
+		this.p = 0;
+	}
+
+	public boolean contains(int page){
+		int l = lists.listOf(page);
+		return l==T1 || l==T2 || (cold!=null && cold.contains(page));
+	}
+
+	public void access(int page){
+		lists.pushFront(T2,page);
+	}
+
+	public int evict(int newPage){
+		int[] size = lists.size;
+		int l = (newPage==-1)?-1:lists.listOf(newPage);
+		if(l==B1){
+			p = Math.min(c,p+Math.max(size[B2]/size[B1],1));
+		}else if(l==B2){
+			p = Math.max(0,p-Math.max(size[B1]/size[B2],1));
+		}
+		int victim = (cold!=null)?cold.evict(size[T1]+size[T2]>0):-1;
+		if(victim!=-1){
+			if(l!=B1 && l!=B2){
+				trim();
+			}
+			return victim;
+		}
+		if(l==B1 || l==B2){
+			return replace(l==B2);
+		}
+		if(size[T1]+size[B1]>=c){
+			if(size[T1]<c){
+				lists.removeLast(B1);
+				return replace(false);
+			}
+			return lists.removeLast(T1);	//B1 is empty, drop the victim entirely
+		}
+		if(size[T1]+size[T2]+size[B1]+size[B2]>=2*c){
+			lists.removeLast(B2);
+		}
+		return replace(false);
+	}
+
+	/*
+	 * This method drops the ghost a new page outside B1 and B2 replaces, when the victim
+	 * is a cold page and not the LRU page of T1 or T2
+	 */
+	private void trim(){
+		int[] size = lists.size;
+		if(size[T1]+size[B1]>=c && size[B1]>0){
+			lists.removeLast(B1);
+		}else if(size[T1]+size[T2]+size[B1]+size[B2]>=2*c){
+			lists.removeLast(B2);
+		}
+	}
+
+	/*
+	 * This method moves the LRU page of T1 or T2 into its ghost list and returns it
+	 */
+	private int replace(boolean inB2){
+		int t1 = lists.size[T1]+((cold!=null)?cold.size():0);	//cold pages are seen once too
+		int victim;
+		if(t1>=1 && (t1>p || (inB2 && t1==p) || lists.size[T2]==0)){
+			if(lists.size[T1]==0){
+				return cold.removeOldest();
+			}
+			victim = lists.removeLast(T1);
+			lists.pushFront(B1,victim);
+		}else{
+			victim = lists.removeLast(T2);
+			lists.pushFront(B2,victim);
+		}
+		return victim;
+	}
+
+	public void insert(int page){
+		int l = lists.listOf(page);
+		if(l==B1 || l==B2){
+			lists.pushFront(T2,page);
+		}else{
+			lists.pushFront(T1,page);
+		}
+	}
+
+	public void insertCold(int page){
+		if(cold==null){
+			cold = new ColdPages(lists.pages,c);	//only prefetching inserts cold pages
+		}
+		cold.insert(page);	//a ghost stays in B1 or B2 until the page is used
+	}
+
+	public void activate(int page){
+		cold.remove(page);
+		insert(page);
+	}
+
+	public String name(){
+		return "ARC";
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		lists.save(out);
+		out.writeInt(p);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		lists.load(in);
+		p = in.getInt();
+	}
+}
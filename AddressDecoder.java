@@ -0,0 +1,55 @@
+public class AddressDecoder {
+
+	/*
+	 * Splits a logical address into page number and offset with a shift and a mask.
+	 * The offset takes the low log2(frame size) bits and the page number the next
+	 * log2(pages) bits, so the address space is no longer fixed at 16 bits.
+	 * */
+
+	public int offsetBits;		//Number of bits of the offset
+	public int pageBits;		//Number of bits of the page number
+	public long offsetMask;
+	public long pageMask;
+
+	public AddressDecoder(int pageBits,int offsetBits){
+		if(pageBits<1 || offsetBits<1 || pageBits+offsetBits>63){
+			throw new IllegalArgumentException("Address must have between 2 and 63 bits");
+		}
+		this.pageBits = pageBits;
+		this.offsetBits = offsetBits;
+		this.offsetMask = (1L<<offsetBits)-1;
+		this.pageMask = (1L<<pageBits)-1;
+	}
+
+	/*
+	 * This method returns the decoder for the given number of pages and frame size.
+	 * Both must be powers of two
+	 */
+	public static AddressDecoder forSizes(long pages,int frameSize){
+		if(Long.bitCount(pages)!=1 || Integer.bitCount(frameSize)!=1){
+			throw new IllegalArgumentException("Number of pages and frame size must be powers of two");
+		}
+		return new AddressDecoder(Long.numberOfTrailingZeros(pages),Integer.numberOfTrailingZeros(frameSize));
+	}
+
+	/*
+	 * This method returns the page number of the address
+	 */
+	public long page(long address){
+		return (address>>>offsetBits)&pageMask;
+	}
+
+	/*
+	 * This method returns the offset of the address
+	 */
+	public int offset(long address){
+		return (int)(address&offsetMask);
+	}
+
+	/*
+	 * This method returns the number of bits in an address
+	 */
+	public int addressBits(){
+		return pageBits+offsetBits;
+	}
+}
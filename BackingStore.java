@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class BackingStore {
+
+	/*
+	 * The swap area ("BACKING_STORE.bin") is opened once and memory-mapped, so a page fault
+	 * copies a whole page in one bulk transfer instead of opening the file once per byte.
+	 * */
+
+	public static String FILE_NAME = "BACKING_STORE.bin";	//Default swap area
+
+	public int pageSize;				//Size of each page in bytes
+	public RandomAccessFile file;		//The swap area file
+	public FileChannel channel;			//Channel of the swap area
+	public MappedByteBuffer buffer;		//The whole swap area mapped into memory
+
+	/*Opening and mapping the swap area*/
+	public BackingStore(String fileName,int pageSize,boolean writable) throws IOException{
+		this.pageSize = pageSize;
+		this.file = new RandomAccessFile(fileName,writable?"rw":"r");
+		this.channel = file.getChannel();
+		this.buffer = channel.map(writable?FileChannel.MapMode.READ_WRITE:FileChannel.MapMode.READ_ONLY,0,channel.size());
+	}
+
+	/*
+	 * This method copies the given page from swap area into memory starting at the given
+	 * position, in one bulk copy. The mapping is only read at absolute positions, so threads
+	 * can read pages at the same time
+	 */
+	public void readPage(int pageNumber,PhysicalMemory memory,long start){
+		memory.load(start,buffer,pageNumber*pageSize,pageSize);
+	}
+
+	/*
+	 * This method writes whole pages starting at the given page. The data is written through
+	 * the channel, which the mapping shares, so later page-ins see the new values
+	 */
+	public void writePages(int firstPage,ByteBuffer data) throws IOException{
+		long position = (long)firstPage*pageSize;
+		while(data.hasRemaining()){
+			position += channel.write(data,position);
+		}
+	}
+
+	/*
+	 * This method returns a single value from swap area
+	 */
+	public int readByte(int seek){
+		return buffer.get(seek);
+	}
+
+	/*
+	 * This method returns the number of pages in swap area
+	 */
+	public int pageCount(){
+		return buffer.capacity()/pageSize;
+	}
+
+	public void close() throws IOException{
+		channel.close();
+		file.close();
+	}
+}
@@ -0,0 +1,30 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+public class BinarySink extends ChannelSink {
+
+	/*
+	 * Writes each reference as an 18 byte big-endian record after a 4 byte MAGIC ("VMOU"):
+	 *
+	 *   long virtual address
+	 *   long physical address
+	 *   byte value
+	 *   byte dirty bit (-1 if the program does not track writes)
+	 * */
+
+	public static final int MAGIC = 0x564D4F55;
+	public static final int RECORD_SIZE = 18;
+
+	public BinarySink(WritableByteChannel channel,boolean closeChannel,boolean async){
+		super(channel,closeChannel,async);
+		buffer.putInt(MAGIC);
+	}
+
+	public void record(long virtualAddress,long physicalAddress,int value,int dirtyBit) throws IOException{
+		ensure(RECORD_SIZE);
+		buffer.putLong(virtualAddress);
+		buffer.putLong(physicalAddress);
+		buffer.put((byte)value);
+		buffer.put((byte)dirtyBit);
+	}
+}
@@ -0,0 +1,128 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class BinaryTraceReader extends TraceReader {
+
+	/*
+	 * Reads a binary trace (see TraceFormat) through a memory-mapped window of the file.
+	 * The window is remapped further along when a batch would run past its end, so traces
+	 * larger than 2GB can be read as well.
+	 * */
+
+	public static long WINDOW = 1L<<30;	//Largest part of the file mapped at once
+
+	public RandomAccessFile file;
+	public FileChannel channel;
+	public MappedByteBuffer window;		//Mapped part of the file
+	public LongBuffer longs;			//View of the window for FIXED records
+	public long windowStart;			//File position of the first byte of the window
+	public int offset;					//Position of the next record inside the window
+	public int encoding;
+	public long total;					//Number of records in the trace
+	public long decoded;				//Number of records decoded so far
+	public long previous;				//Last address, DELTA records are relative to it
+
+	public BinaryTraceReader(String fileName) throws IOException{
+		this.file = new RandomAccessFile(fileName,"r");
+		this.channel = file.getChannel();
+		ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE);
+		while(header.hasRemaining()){
+			if(channel.read(header,header.position())<0){
+				break;
+			}
+		}
+		header.flip();
+		if(header.remaining()<TraceFormat.HEADER_SIZE || header.getInt()!=TraceFormat.MAGIC){
+			close();
+			throw new IOException("Not a binary trace: "+fileName);
+		}
+		int version = header.get();
+		this.encoding = header.get();
+		header.getShort();
+		this.total = header.getLong();
+		if(version!=TraceFormat.VERSION || (encoding!=TraceFormat.FIXED && encoding!=TraceFormat.DELTA)){
+			close();
+			throw new IOException("Unsupported binary trace: "+fileName);
+		}
+		this.decoded = 0;
+		this.previous = 0;
+		map(TraceFormat.HEADER_SIZE);
+	}
+
+	/*
+	 * This method maps the window starting at the given file position
+	 */
+	private void map(long start) throws IOException{
+		long length = Math.min(WINDOW,channel.size()-start);
+		this.window = channel.map(FileChannel.MapMode.READ_ONLY,start,length);
+		this.longs = window.asLongBuffer();
+		this.windowStart = start;
+		this.offset = 0;
+	}
+
+	protected int fill() throws IOException{
+		int n = (int)Math.min(addresses.length,total-decoded);
+		if(n<=0){
+			return 0;
+		}
+		if(encoding==TraceFormat.FIXED){
+			if(offset+(long)n*8>window.capacity()){
+				map(windowStart+offset);
+			}
+			longs.get(offset/8,addresses,0,n);	//bulk copy of the records
+			for(int i=0;i<n;i++){
+				long record = addresses[i];
+				writes[i] = (record&1)!=0;
+				addresses[i] = record>>>1;
+			}
+			offset += n*8;
+		}else{
+			if(offset+(long)n*10>window.capacity() && windowStart+window.capacity()<channel.size()){
+				map(windowStart+offset);	//a varint takes at most 10 bytes
+			}
+			MappedByteBuffer w = window;
+			int p = offset;
+			long last = previous;
+			for(int i=0;i<n;i++){
+				long record = 0;
+				int shift = 0;
+				int b;
+				do{
+					b = w.get(p++);
+					record |= (long)(b&0x7F)<<shift;
+					shift += 7;
+				}while(b<0);
+				writes[i] = (record&1)!=0;
+				last += TraceFormat.unzigzag(record>>>1);
+				addresses[i] = last;
+			}
+			previous = last;
+			offset = p;
+		}
+		decoded += n;
+		return n;
+	}
+
+	/*
+	 * FIXED records have a known size, so they are skipped by mapping the window further
+	 * along instead of decoding them
+	 */
+	public long skip(long n) throws IOException{
+		if(encoding!=TraceFormat.FIXED || decoded>0){
+			return super.skip(n);
+		}
+		long skipped = Math.min(n,total);
+		decoded = skipped;
+		map(TraceFormat.HEADER_SIZE+skipped*8);
+		return skipped;
+	}
+
+	public void close() throws IOException{
+		channel.close();
+		file.close();
+	}
+}
@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+
+public abstract class ChannelSink extends OutputSink implements Runnable {
+
+	/*
+	 * Base of the sinks that write to a channel. Records are encoded into a large reusable
+	 * buffer and the buffer is written when full. In async mode full buffers are handed to a
+	 * writer thread and the translation loop continues in one of the spare buffers.
+	 * */
+
+	public static int BUFFER_SIZE = 1<<20;	//Size of each output buffer
+	public static int BUFFERS = 4;			//Number of buffers in async mode
+
+	public WritableByteChannel channel;
+	public boolean closeChannel;	//false for the console, which must stay open for the statistics
+	public ByteBuffer buffer;		//Buffer being filled
+	public ArrayBlockingQueue<ByteBuffer> full;		//Buffers waiting for the writer thread
+	public ArrayBlockingQueue<ByteBuffer> free;		//Buffers ready to be filled
+	public Thread writer;
+	public IOException error;		//First error seen by the writer thread
+
+	private static final ByteBuffer STOP = ByteBuffer.allocate(0);
+
+	public ChannelSink(WritableByteChannel channel,boolean closeChannel,boolean async){
+		this.channel = channel;
+		this.closeChannel = closeChannel;
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		if(async){
+			this.full = new ArrayBlockingQueue<ByteBuffer>(BUFFERS+1);
+			this.free = new ArrayBlockingQueue<ByteBuffer>(BUFFERS);
+			for(int i=1;i<BUFFERS;i++){
+				free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+			}
+			this.writer = new Thread(this,"output-writer");
+			this.writer.setDaemon(true);
+			this.writer.start();
+		}
+	}
+
+	/*
+	 * This method makes sure the buffer has room for the given number of bytes
+	 */
+	protected void ensure(int bytes) throws IOException{
+		if(buffer.remaining()<bytes){
+			flushBuffer();
+		}
+	}
+
+	/*
+	 * This method writes the buffer, or hands it to the writer thread in async mode
+	 */
+	protected void flushBuffer() throws IOException{
+		buffer.flip();
+		if(writer==null){
+			writeFully(buffer);
+			buffer.clear();
+			return;
+		}
+		synchronized(this){
+			if(error!=null){
+				throw error;
+			}
+		}
+		try{
+			full.put(buffer);
+			buffer = free.take();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing output");
+		}
+	}
+
+	private void writeFully(ByteBuffer data) throws IOException{
+		while(data.hasRemaining()){
+			channel.write(data);
+		}
+	}
+
+	public void run(){
+		try{
+			while(true){
+				ByteBuffer data = full.take();
+				if(data==STOP){
+					return;
+				}
+				try{
+					writeFully(data);
+				}catch(IOException e){
+					synchronized(this){
+						if(error==null){
+							error = e;
+						}
+					}
+				}
+				data.clear();
+				free.put(data);
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void close() throws IOException{
+		flushBuffer();
+		if(writer!=null){
+			full.add(STOP);
+			try{
+				writer.join();
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+			writer = null;
+			if(error!=null){
+				throw error;
+			}
+		}
+		if(closeChannel){
+			channel.close();
+		}
+	}
+}
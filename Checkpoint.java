@@ -0,0 +1,305 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+
+public class Checkpoint {
+
+	/*
+	 * Periodic snapshots of a manager, so a long run can be resumed instead of restarted.
+	 * Snapshot N is the file "prefix.N" and holds the position in the trace, the manager state
+	 * (page table, dirty bits, TLB, replacement policy, statistics) and the contents of some
+	 * frames. A full snapshot holds every used frame; the snapshots after it hold only the
+	 * frames loaded since the previous one. Every FULL_EVERY snapshots a full one is written
+	 * again and the older chain is deleted, so resuming never reads more than FULL_EVERY files.
+	 *
+	 * A snapshot is written to a temporary file, synced and then renamed, and it ends with the
+	 * magic number again, so a run stopped while writing leaves the previous snapshot intact.
+	 * Resuming memory-maps the latest snapshot and restores the frames from it and from the
+	 * snapshots before it back to the full one, taking the newest copy of each frame.
+	 *
+	 * The position is a reference count, not a byte offset, so the trace is skipped up to it
+	 * with TraceReader.skip. Only a FIXED binary trace seeks there directly; a text or DELTA
+	 * trace is read and parsed again from its start, so long runs that resume should use a
+	 * FIXED trace (see TraceWriter).
+	 *
+	 * File layout: magic, version, sequence, base (sequence of the full snapshot), position
+	 * (long), frame size, length and bytes of the state, number of frames, (frame, contents)
+	 * per frame, magic.
+	 * */
+
+	public static final int MAGIC = 0x564D434B;	//"VMCK"
+	public static final int VERSION = 2;	//2: the statistics of Engine are longs
+	public static int FULL_EVERY = 16;			//Snapshots per chain, the full one included
+
+	/*The part of a manager saved in every snapshot besides the frame contents*/
+	public interface State {
+		void save(DataOutputStream out) throws IOException;
+		void load(ByteBuffer in) throws IOException;
+	}
+
+	public String prefix;			//Snapshot N is the file prefix.N
+	public State state;
+	public PhysicalMemory memory;
+	public int frameSize;
+	public boolean[] changed;		//changed[frame] is true if it was loaded since the last snapshot
+	public byte[] frameBuffer;		//Reusable buffer holding one frame
+	public int sequence;			//Sequence of the next snapshot
+	public int base;				//Sequence of the full snapshot of the current chain, -1 if none
+
+	public Checkpoint(String prefix,State state,PhysicalMemory memory,int frames,int frameSize){
+		this.prefix = prefix;
+		this.state = state;
+		this.memory = memory;
+		this.frameSize = frameSize;
+		this.changed = new boolean[frames];
+		this.frameBuffer = new byte[frameSize];
+		this.sequence = 0;
+		this.base = -1;
+	}
+
+	/*
+	 * This method records that new contents were loaded into the frame
+	 */
+	public void markChanged(int frame){
+		changed[frame] = true;
+	}
+
+	/*
+	 * This method deletes every snapshot of the prefix, for a run that starts from the beginning
+	 */
+	public void clear() throws IOException{
+		for(int s:sequences()){
+			Files.deleteIfExists(file(s).toPath());
+		}
+		sequence = 0;
+		base = -1;
+	}
+
+	/*
+	 * This method writes the next snapshot. position is the number of references already
+	 * translated and usedFrames the number of frames holding pages
+	 */
+	public void write(long position,int usedFrames) throws IOException{
+		boolean full = (base==-1 || sequence-base>=FULL_EVERY);
+		int chainBase = full?sequence:base;
+		ByteArrayOutputStream stateBytes = new ByteArrayOutputStream();
+		DataOutputStream stateOut = new DataOutputStream(stateBytes);
+		state.save(stateOut);
+		stateOut.flush();
+		int count = 0;
+		for(int f=0;f<usedFrames;f++){
+			if(full || changed[f]){
+				count++;
+			}
+		}
+		File temp = new File(file(sequence).getPath()+".tmp");
+		FileOutputStream stream = new FileOutputStream(temp);
+		try{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream,1<<16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(sequence);
+			out.writeInt(chainBase);
+			out.writeLong(position);
+			out.writeInt(frameSize);
+			out.writeInt(stateBytes.size());
+			stateBytes.writeTo(out);
+			out.writeInt(count);
+			for(int f=0;f<usedFrames;f++){
+				if(full || changed[f]){
+					memory.store((long)f*frameSize,frameBuffer);
+					out.writeInt(f);
+					out.write(frameBuffer);
+				}
+			}
+			out.writeInt(MAGIC);	//written last, marks the snapshot complete
+			out.flush();
+			stream.getFD().sync();
+		}finally{
+			stream.close();
+		}
+		Files.move(temp.toPath(),file(sequence).toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+		if(full){
+			for(int s:sequences()){
+				if(s<sequence){
+					Files.deleteIfExists(file(s).toPath());	//the previous chain is not needed any more
+				}
+			}
+		}
+		base = chainBase;
+		sequence++;
+		for(int f=0;f<changed.length;f++){
+			changed[f] = false;
+		}
+	}
+
+	/*
+	 * This method restores the state and the frames from the latest complete snapshot and
+	 * returns the number of references translated when it was written
+	 */
+	public long resume() throws IOException{
+		ArrayList<Integer> found = sequences();
+		int latest = -1;
+		for(int i=found.size()-1;i>=0 && latest==-1;i--){
+			if(complete(found.get(i))){
+				latest = found.get(i);
+			}
+		}
+		if(latest==-1){
+			throw new IOException("No complete checkpoint found for "+prefix);
+		}
+		MappedByteBuffer snapshot = map(latest);
+		snapshot.getInt();	//magic
+		snapshot.getInt();	//version
+		snapshot.getInt();	//sequence
+		int chainBase = snapshot.getInt();
+		long position = snapshot.getLong();
+		if(snapshot.getInt()!=frameSize){
+			throw new IOException("Checkpoint frame size does not match");
+		}
+		int length = snapshot.getInt();
+		ByteBuffer stateBuffer = snapshot.slice(snapshot.position(),length);
+		state.load(stateBuffer);
+		boolean[] restored = new boolean[changed.length];
+		for(int s=latest;s>=chainBase;s--){
+			if(!complete(s)){
+				throw new IOException("Checkpoint "+s+" of the chain is missing or incomplete");
+			}
+			restoreFrames(s==latest?snapshot:map(s),restored);
+		}
+		this.base = chainBase;
+		this.sequence = latest+1;
+		return position;
+	}
+
+	/*
+	 * This method copies the frames of a snapshot that no newer snapshot had into memory
+	 */
+	private void restoreFrames(MappedByteBuffer snapshot,boolean[] restored) throws IOException{
+		int p = 28;
+		int length = snapshot.getInt(p);
+		p += 4+length;
+		int count = snapshot.getInt(p);
+		p += 4;
+		for(int i=0;i<count;i++){
+			int f = snapshot.getInt(p);
+			if(f<0 || f>=restored.length){
+				throw new IOException("Checkpoint has more frames than the memory");
+			}
+			if(!restored[f]){
+				memory.load((long)f*frameSize,snapshot,p+4,frameSize);
+				restored[f] = true;
+			}
+			p += 4+frameSize;
+		}
+	}
+
+	/*
+	 * This method returns true if the snapshot exists, has the header and ends with the magic number
+	 */
+	private boolean complete(int s) throws IOException{
+		File f = file(s);
+		if(!f.isFile() || f.length()<40){
+			return false;
+		}
+		MappedByteBuffer snapshot = map(s);
+		return snapshot.getInt(0)==MAGIC && snapshot.getInt(4)==VERSION && snapshot.getInt(8)==s
+				&& snapshot.getInt(snapshot.capacity()-4)==MAGIC;
+	}
+
+	private MappedByteBuffer map(int s) throws IOException{
+		RandomAccessFile file = new RandomAccessFile(file(s),"r");
+		try{
+			FileChannel channel = file.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());	//stays valid after closing
+		}finally{
+			file.close();
+		}
+	}
+
+	private File file(int s){
+		return new File(prefix+"."+s);
+	}
+
+	/*
+	 * This method returns the sequences of the existing snapshots of the prefix, in order
+	 */
+	private ArrayList<Integer> sequences(){
+		ArrayList<Integer> found = new ArrayList<Integer>();
+		File first = new File(prefix);
+		File dir = first.getAbsoluteFile().getParentFile();
+		String name = first.getName()+".";
+		String[] files = (dir==null)?null:dir.list();
+		if(files!=null){
+			for(String f:files){
+				if(f.startsWith(name) && f.length()>name.length() && f.substring(name.length()).chars().allMatch(Character::isDigit)){
+					try{
+						found.add(Integer.parseInt(f.substring(name.length())));
+					}catch(NumberFormatException e){
+						//not one of ours
+					}
+				}
+			}
+		}
+		Collections.sort(found);
+		return found;
+	}
+
+	/*
+	 * The helpers below write and read arrays with their length, so a snapshot of a manager of
+	 * a different size is detected instead of read wrongly
+	 */
+	public static void writeInts(DataOutputStream out,int[] values) throws IOException{
+		out.writeInt(values.length);
+		for(int v:values){
+			out.writeInt(v);
+		}
+	}
+
+	public static void readInts(ByteBuffer in,int[] values) throws IOException{
+		checkLength(in,values.length);
+		in.asIntBuffer().get(values);
+		in.position(in.position()+values.length*4);
+	}
+
+	public static void writeBytes(DataOutputStream out,byte[] values) throws IOException{
+		out.writeInt(values.length);
+		out.write(values);
+	}
+
+	public static void readBytes(ByteBuffer in,byte[] values) throws IOException{
+		checkLength(in,values.length);
+		in.get(values);
+	}
+
+	public static void writeBooleans(DataOutputStream out,boolean[] values) throws IOException{
+		out.writeInt(values.length);
+		for(boolean v:values){
+			out.writeBoolean(v);
+		}
+	}
+
+	public static void readBooleans(ByteBuffer in,boolean[] values) throws IOException{
+		checkLength(in,values.length);
+		for(int i=0;i<values.length;i++){
+			values[i] = in.get()!=0;
+		}
+	}
+
+	private static void checkLength(ByteBuffer in,int expected) throws IOException{
+		if(in.getInt()!=expected){
+			throw new IOException("Checkpoint does not match the size of the simulation");
+		}
+	}
+}
@@ -0,0 +1,102 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class ClockPolicy implements ReplacementPolicy {
+
+	/*
+	 * CLOCK (second chance) replacement. Resident pages sit in a ring of frames, each with a
+	 * reference bit set on access. The hand sweeps the ring clearing bits and evicts the first
+	 * page whose bit is already clear. Slots emptied by evictions are skipped by the hand and
+	 * reused first, so the ring also works when fewer pages than frames are resident.
+	 * */
+
+	public int[] ring;			//ring[slot] is the page in that slot, -1 if empty
+	public int[] slotOf;		//slotOf[page] is the slot of the page, -1 if not resident
+	public boolean[] referenced;	//reference bit of each slot
+	public int hand;			//next slot to inspect
+	public int used;			//number of slots ever used
+	public int[] freeSlots;		//slots released by evictions, reused last in first out
+	public int freeCount;
+
+	public ClockPolicy(int pages,int frames){
+		this.ring = new int[frames];
+		this.slotOf = new int[pages];
+		this.referenced = new boolean[frames];
+		this.hand = 0;
+		this.used = 0;
+		this.freeSlots = new int[frames];
+		this.freeCount = 0;
+		for(int i=0;i<pages;i++){
+			slotOf[i] = -1;
+		}
+		for(int i=0;i<frames;i++){
+			ring[i] = -1;
+		}
+	}
+
+	public boolean contains(int page){
+		return slotOf[page]!=-1;
+	}
+
+	public void access(int page){
+		referenced[slotOf[page]] = true;
+	}
+
+	public int evict(int newPage){
+		while(ring[hand]==-1 || referenced[hand]){
+			referenced[hand] = false;	//give it a second chance
+			hand = (hand+1)%ring.length;
+		}
+		int victim = ring[hand];
+		slotOf[victim] = -1;
+		ring[hand] = -1;
+		freeSlots[freeCount++] = hand;
+		hand = (hand+1)%ring.length;
+		return victim;
+	}
+
+	public void insert(int page){
+		int slot;
+		if(freeCount>0){
+			slot = freeSlots[--freeCount];
+		}else{
+			slot = used++;
+		}
+		ring[slot] = page;
+		slotOf[page] = slot;
+		referenced[slot] = false;
+	}
+
+	public void insertCold(int page){
+		insert(page);	//its reference bit is clear, so the hand evicts it on its first pass
+	}
+
+	public void activate(int page){
+		access(page);
+	}
+
+	public String name(){
+		return "CLOCK";
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		Checkpoint.writeInts(out,ring);
+		Checkpoint.writeInts(out,slotOf);
+		Checkpoint.writeBooleans(out,referenced);
+		out.writeInt(hand);
+		out.writeInt(used);
+		Checkpoint.writeInts(out,freeSlots);
+		out.writeInt(freeCount);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		Checkpoint.readInts(in,ring);
+		Checkpoint.readInts(in,slotOf);
+		Checkpoint.readBooleans(in,referenced);
+		hand = in.getInt();
+		used = in.getInt();
+		Checkpoint.readInts(in,freeSlots);
+		freeCount = in.getInt();
+	}
+}
@@ -0,0 +1,68 @@
+public class ColdPages {
+
+	/*
+	 * The pages a replacement policy inserted cold (see ReplacementPolicy.insertCold), kept in
+	 * a FIFO apart from the policy's own lists until they are activated. A cold page that is
+	 * still unused after frames/LIFE_SHARE evictions is the next victim, before any page the
+	 * policy ranks: half the time an unused page inserted at the head of an LRU list survives.
+	 * So read-ahead pages that are used soon stay, and wasted ones do not push the pages in
+	 * use out for long.
+	 *
+	 * The FIFO is not saved in checkpoints, which cannot be combined with prefetching.
+	 * */
+
+	public static int LIFE_SHARE = 2;	//A cold page lives frames/LIFE_SHARE evictions unless used
+
+	public PageLists fifo;		//Cold pages, the oldest at the tail
+	public int[] since;			//since[page] is the number of evictions when it was inserted
+	public int evictions;		//Evictions of the policy so far
+	public int life;
+
+	public ColdPages(int pages,int frames){
+		this.fifo = new PageLists(pages,1);
+		this.since = new int[pages];
+		this.life = Math.max(1,frames/LIFE_SHARE);
+	}
+
+	public boolean contains(int page){
+		return fifo.listOf(page)!=-1;
+	}
+
+	public void insert(int page){
+		fifo.pushFront(0,page);
+		since[page] = evictions;
+	}
+
+	/*
+	 * This method removes the page from the FIFO, at its first use
+	 */
+	public void remove(int page){
+		fifo.remove(page);
+	}
+
+	public int size(){
+		return fifo.size[0];
+	}
+
+	/*
+	 * This method removes the oldest cold page and returns it
+	 */
+	public int removeOldest(){
+		return fifo.removeLast(0);
+	}
+
+	/*
+	 * This method counts one eviction of the policy and returns the cold page to evict instead
+	 * of the policy's victim, or -1. others is false if the policy holds no other resident page
+	 */
+	public int evict(boolean others){
+		evictions++;
+		int oldest = fifo.last(0);
+		if(oldest!=-1 && (!others || evictions-since[oldest]>life)){
+			fifo.remove(oldest);
+		}else{
+			oldest = -1;
+		}
+		return oldest;
+	}
+}
@@ -0,0 +1,249 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class CompressedSwap implements Checkpoint.State {
+
+	/*
+	 * A compressed swap tier between physical memory and the swap area, like zswap: an
+	 * evicted page is compressed into a pool of a fixed number of bytes in memory, and a
+	 * fault on it decompresses it from there instead of reading the swap area. A page that
+	 * does not shrink is rejected and takes the usual path. A dirty page reaches the swap
+	 * area only when the pool evicts it, so a page loaded back from the pool is never written.
+	 *
+	 * The pool is a ring of bytes. A page is appended at the head and the pool evicts its
+	 * least recently stored page, at the tail, until the new one fits. A page in the pool is
+	 * not referenced until it is loaded, which removes it, so the order of storing is the
+	 * LRU order; the space of a page loaded out of the middle is reused once the tail
+	 * passes it. Nothing is allocated after construction.
+	 * */
+
+	public static final int MISS = -1;		//load(): the page is not in the pool
+	public static final int CLEAN = 0;		//load(): the page is the same as in the swap area
+	public static final int DIRTY = 1;		//load(): the page was modified since it was read
+
+	public int capacity;		//Bytes of the pool
+	public int pageSize;
+	public byte[] pool;			//Compressed pages
+	public int head;			//Offset where the next page is stored
+	public int[] start;			//start[page] is the offset of the page in the pool
+	public int[] length;		//length[page] is its compressed size, 0 if it is not in the pool
+	public boolean[] dirty;		//dirty[page] is true if it must be written when the pool evicts it
+	public PageLists order;		//Pages in the pool, the least recently stored at the tail
+	public int usedBytes;		//Bytes held by the pages in the pool
+
+	public WriteBackQueue writeBack;	//Receives the dirty pages the pool evicts, if dirty bits are tracked
+	private final Deflater deflater;
+	private final Inflater inflater;
+	private final byte[] page;			//A page before compression or after decompression
+	private final byte[] compressed;	//A page after compression
+
+	/*for statistics purpose*/
+	public long stored;				//Pages stored
+	public long rejected;			//Pages that did not shrink
+	public long bytesIn;			//Bytes of the pages stored
+	public long bytesOut;			//Bytes they were compressed to
+	public long lookups;			//Page loads that searched the pool
+	public long hits;				//Page loads served by the pool
+	public long evictions;			//Pages the pool evicted
+	public long dirtyStored;		//Dirty pages stored
+	public long dirtyWritten;		//Dirty pages written to the swap area by the pool
+
+	public CompressedSwap(int capacity,int pages,int pageSize){
+		if(capacity<1){
+			throw new IllegalArgumentException("Compressed swap pool must have at least 1 byte");
+		}
+		this.capacity = capacity;
+		this.pageSize = pageSize;
+		this.pool = new byte[capacity];
+		this.start = new int[pages];
+		this.length = new int[pages];
+		this.dirty = new boolean[pages];
+		this.order = new PageLists(pages,1);
+		this.deflater = new Deflater(Deflater.BEST_SPEED);
+		this.inflater = new Inflater();
+		this.page = new byte[pageSize];
+		this.compressed = new byte[pageSize];
+	}
+
+	/*
+	 * This method compresses the page held in memory at "from" into the pool, evicting the
+	 * least recently stored pages if needed. It returns false if the page does not shrink,
+	 * in which case it is not stored
+	 */
+	public boolean store(int pageNumber,PhysicalMemory memory,long from,boolean modified) throws IOException{
+		memory.store(from,page);
+		deflater.reset();
+		deflater.setInput(page);
+		deflater.finish();
+		int size = deflater.deflate(compressed);
+		if(!deflater.finished() || size>=pageSize || size>capacity){
+			rejected++;
+			return false;
+		}
+		int at = allocate(size);
+		System.arraycopy(compressed,0,pool,at,size);
+		start[pageNumber] = at;
+		length[pageNumber] = size;
+		dirty[pageNumber] = modified;
+		order.pushFront(0,pageNumber);
+		usedBytes += size;
+		stored++;
+		bytesIn += pageSize;
+		bytesOut += size;
+		if(modified){
+			dirtyStored++;
+		}
+		return true;
+	}
+
+	/*
+	 * This method decompresses the page into memory at "to" and removes it from the pool.
+	 * It returns MISS if the page is not in the pool, otherwise CLEAN or DIRTY
+	 */
+	public int load(int pageNumber,PhysicalMemory memory,long to) throws IOException{
+		lookups++;
+		if(length[pageNumber]==0){
+			return MISS;
+		}
+		hits++;
+		decompress(pageNumber);
+		memory.load(to,page);
+		int state = dirty[pageNumber]?DIRTY:CLEAN;
+		remove(pageNumber);
+		return state;
+	}
+
+	/*
+	 * This method returns the offset of "size" free bytes at the head, evicting from the
+	 * tail until there is room
+	 */
+	private int allocate(int size) throws IOException{
+		while(true){
+			int oldest = order.last(0);
+			if(oldest==-1){
+				head = size;	//the pool is empty
+				return 0;
+			}
+			int tail = start[oldest];
+			if(head>tail){
+				/*the pages lie between tail and head: room after head, or before tail*/
+				if(capacity-head>=size){
+					head += size;
+					return head-size;
+				}
+				if(tail>=size){
+					head = size;
+					return 0;
+				}
+			}else if(tail-head>=size){
+				/*the head wrapped around: room between head and tail*/
+				head += size;
+				return head-size;
+			}
+			evict(oldest);
+		}
+	}
+
+	/*
+	 * This method evicts the page from the pool, writing it to the swap area if it is dirty
+	 */
+	private void evict(int pageNumber) throws IOException{
+		evictions++;
+		if(dirty[pageNumber]){
+			decompress(pageNumber);
+			writeBack.enqueue(pageNumber,page);
+			dirtyWritten++;
+		}
+		remove(pageNumber);
+	}
+
+	private void remove(int pageNumber){
+		order.remove(pageNumber);
+		usedBytes -= length[pageNumber];
+		length[pageNumber] = 0;
+		dirty[pageNumber] = false;
+	}
+
+	private void decompress(int pageNumber) throws IOException{
+		inflater.reset();
+		inflater.setInput(pool,start[pageNumber],length[pageNumber]);
+		try{
+			if(inflater.inflate(page)!=pageSize){
+				throw new IOException("Compressed page "+pageNumber+" is damaged");
+			}
+		}catch(DataFormatException e){
+			throw new IOException("Compressed page "+pageNumber+" is damaged: "+e.getMessage());
+		}
+	}
+
+	/*
+	 * This method writes the dirty pages still in the pool to the swap area, at the end of a run
+	 */
+	public void flush() throws IOException{
+		for(int p=order.last(0);p!=-1;p=order.last(0)){
+			if(dirty[p]){
+				decompress(p);
+				writeBack.enqueue(p,page);
+				dirtyWritten++;
+			}
+			remove(p);
+		}
+	}
+
+	public void printStatistics(){
+		System.out.println("Compressed swap: "+capacity+" bytes, "+stored+" pages stored, "+rejected+" rejected");
+		System.out.println("Compression ratio: "+(float)bytesIn/Math.max(1,bytesOut));
+		System.out.println("Tier hit rate: "+(float)hits/Math.max(1,lookups)*100+'%');
+		System.out.println("Disk reads avoided: "+hits+" of "+lookups+" page loads");
+		System.out.println("Pool evictions: "+evictions);
+		if(writeBack!=null){
+			System.out.println("Disk writes avoided: "+(dirtyStored-dirtyWritten)+" of "+dirtyStored+" dirty pages");
+		}
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		out.writeInt(capacity);
+		Checkpoint.writeBytes(out,pool);
+		out.writeInt(head);
+		Checkpoint.writeInts(out,start);
+		Checkpoint.writeInts(out,length);
+		Checkpoint.writeBooleans(out,dirty);
+		order.save(out);
+		out.writeInt(usedBytes);
+		out.writeLong(stored);
+		out.writeLong(rejected);
+		out.writeLong(bytesIn);
+		out.writeLong(bytesOut);
+		out.writeLong(lookups);
+		out.writeLong(hits);
+		out.writeLong(evictions);
+		out.writeLong(dirtyStored);
+		out.writeLong(dirtyWritten);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		if(in.getInt()!=capacity){
+			throw new IOException("Checkpoint was taken with a different compressed swap pool");
+		}
+		Checkpoint.readBytes(in,pool);
+		head = in.getInt();
+		Checkpoint.readInts(in,start);
+		Checkpoint.readInts(in,length);
+		Checkpoint.readBooleans(in,dirty);
+		order.load(in);
+		usedBytes = in.getInt();
+		stored = in.getLong();
+		rejected = in.getLong();
+		bytesIn = in.getLong();
+		bytesOut = in.getLong();
+		lookups = in.getLong();
+		hits = in.getLong();
+		evictions = in.getLong();
+		dirtyStored = in.getLong();
+		dirtyWritten = in.getLong();
+	}
+}
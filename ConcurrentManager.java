@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ConcurrentManager {
+
+	/*
+	 * One virtual memory shared by many worker threads, each modelling a core. Physical memory
+	 * is smaller than the logical memory, as in Modification, and frames are replaced with CLOCK.
+	 *
+	 * - Every core has its own TLB, touched only by its own thread. When a page is evicted the
+	 *   evicting core posts a shootdown to the other cores, which drop the page from their TLBs
+	 *   before their next translation. A posted page sets its bit in a bitmap and the bit of
+	 *   its word in a second, 32 times smaller, bitmap, so a core reads and clears only the
+	 *   words that have pages.
+	 * - Reads do not lock. Each frame has a version that is odd while the frame is being
+	 *   replaced; a reader checks the owner and the version around its read of physical memory
+	 *   and retries if either changed. TLB hits are validated the same way, so a shootdown that
+	 *   has not been handled yet can never return stale data.
+	 * - Page faults lock one of STRIPES locks chosen by page number and check the page table
+	 *   again, so two cores faulting on the same page load it only once.
+	 * - The CLOCK hand and the reference bits are atomics. A victim frame is claimed by moving
+	 *   its version from even to odd with a CAS, so no lock is held on the victim's page.
+	 *
+	 * Usage: java ConcurrentManager addresses.txt [-threads=4] [-frames=128] [-tlb=16]
+	 * */
+
+	/*tlbSize is the size of each core's TLB, frames are always replaced with a concurrent CLOCK*/
+	public static final SimulatorConfig PRESET = SimulatorConfig.builder()
+		.frameSize(256).frames(128).pages(256)
+		.tlbSize(16).tlbWays(0).policy("clock")
+		.build();
+	public static int STRIPES = 64;		//Number of page fault locks, a power of two
+
+	private static final int STALE = Integer.MIN_VALUE;	//A read that raced with a replacement
+
+	public final SimulatorConfig config;
+	public final int frameSize;				//Size of each frame
+	public final int frames;				//Number of frames of this instance
+	public final int pages;					//Number of pages in logical memory
+	public PhysicalMemory physicalMem;		//physical memory
+	public AtomicIntegerArray pageTable;	//pageTable[page] is its frame, -1 if not resident
+	public AtomicIntegerArray owner;		//owner[frame] is the page in it, -1 if none
+	public AtomicIntegerArray version;		//version[frame] is odd while the frame is replaced
+	public AtomicIntegerArray referenced;	//CLOCK reference bit of each frame
+	public AtomicInteger nextFrame;			//Next never used frame
+	public AtomicInteger hand;				//Next frame the CLOCK hand inspects
+	public Object[] locks;					//Page fault locks
+	public BackingStore backingStore;		//Swap area, read by every core
+	public AddressDecoder decoder;			//Splits an address into page and offset
+	public Core[] cores;
+
+	/*State of one core. Only its own thread uses it, except the shootdown mailbox*/
+	public static class Core {
+		public int id;
+		public TLB tlb;
+		public AtomicIntegerArray shootdown;	//Bitmap of pages to drop from the TLB
+		public AtomicIntegerArray posted;		//Bitmap of the words of shootdown that may have bits
+		public volatile boolean pending;		//Set when shootdown has bits
+
+		/*for statistics purpose*/
+		public long pageFault;
+		public long TLBHit;
+		public long totalAddress;
+		public long shootdownsSent;
+		public long checksum;					//Sum of every value read
+
+		public Core(int id,int tlbSize,int pages){
+			this.id = id;
+			this.tlb = new TLB(tlbSize,tlbSize,pages);
+			this.shootdown = new AtomicIntegerArray((pages+31)/32);
+			this.posted = new AtomicIntegerArray((shootdown.length()+31)/32);
+		}
+	}
+
+	public ConcurrentManager(SimulatorConfig config){
+		this.config = config;
+		this.frameSize = config.frameSize;
+		this.frames = config.frames;
+		this.pages = config.pages;
+		this.physicalMem = new PhysicalMemory(frames,frameSize);
+		this.pageTable = new AtomicIntegerArray(pages);
+		this.owner = new AtomicIntegerArray(frames);
+		this.version = new AtomicIntegerArray(frames);
+		this.referenced = new AtomicIntegerArray(frames);
+		this.nextFrame = new AtomicInteger();
+		this.hand = new AtomicInteger();
+		this.locks = new Object[STRIPES];
+		this.decoder = AddressDecoder.forSizes(pages,frameSize);
+		this.cores = new Core[0];
+		for(int i=0;i<pages;i++){
+			pageTable.set(i,-1);
+		}
+		for(int i=0;i<frames;i++){
+			owner.set(i,-1);
+		}
+		for(int i=0;i<STRIPES;i++){
+			locks[i] = new Object();
+		}
+	}
+
+	/*
+	 * Our program starts here
+	 */
+	public static void main(String[] args){
+		Options options = new Options(args);
+		if(options.count()!=1){
+			System.out.println("Please specify a file name");
+			System.out.println("Usage: java ConcurrentManager addresses.txt [-threads=4] [-frames=128] [-tlb=16]");
+			return;
+		}
+		try{
+			int threads = options.getInt("threads",Runtime.getRuntime().availableProcessors());
+			SimulatorConfig config = PRESET.toBuilder()
+				.frames(options.getInt("frames",PRESET.frames))
+				.tlbSize(options.getInt("tlb",PRESET.tlbSize))
+				.build();
+			options.checkUsed();
+			ConcurrentManager vm = new ConcurrentManager(config);
+			long[] addresses = TraceReader.readAll(options.get(0,null));
+			vm.backingStore = new BackingStore(BackingStore.FILE_NAME,config.frameSize,false);
+			long elapsed = vm.run(addresses,threads);
+			vm.backingStore.close();
+			vm.printStatistics(elapsed);
+		}catch(IllegalArgumentException e){
+			System.out.println("Error: "+e.getMessage());
+		}catch(InterruptedException e){
+			System.out.println("Error: interrupted");
+		}catch(IOException e){
+			System.out.println("Error: specified file or line cannot be found");
+		}
+	}
+
+	/*
+	 * This method splits the addresses into one contiguous slice per thread, translates them
+	 * on that many cores and returns the elapsed time in nanoseconds
+	 */
+	public long run(long[] addresses,int threads) throws InterruptedException{
+		if(threads<1){
+			throw new IllegalArgumentException("Number of threads must be at least 1");
+		}
+		cores = new Core[threads];
+		for(int i=0;i<threads;i++){
+			cores[i] = new Core(i,config.tlbSize,pages);
+		}
+		Thread[] workers = new Thread[threads];
+		long start = System.nanoTime();
+		for(int i=0;i<threads;i++){
+			Core core = cores[i];
+			int from = (int)((long)addresses.length*i/threads);
+			int to = (int)((long)addresses.length*(i+1)/threads);
+			workers[i] = new Thread(() -> translateAll(core,addresses,from,to),"core-"+i);
+			workers[i].start();
+		}
+		for(Thread worker:workers){
+			worker.join();
+		}
+		return System.nanoTime()-start;
+	}
+
+	/*
+	 * This method translates a slice of addresses on one core
+	 */
+	public void translateAll(Core core,long[] addresses,int from,int to){
+		long checksum = 0;
+		for(int i=from;i<to;i++){
+			checksum += read(core,addresses[i]);
+		}
+		core.checksum += checksum;
+	}
+
+	/*
+	 * This method translates one logical address on the given core and returns the value
+	 * stored there
+	 */
+	public int read(Core core,long number){
+		if(core.pending){
+			drainShootdowns(core);
+		}
+		int pageNumber = (int)decoder.page(number);
+		int offsetNumber = decoder.offset(number);
+		core.totalAddress++;
+		int TLBIndex = core.tlb.lookup(pageNumber);
+		if(TLBIndex!=-1){
+			int value = readFrame(pageNumber,core.tlb.frame[TLBIndex],offsetNumber);
+			if(value!=STALE){
+				/*TLB hits!*/
+				core.TLBHit++;
+				return value;
+			}
+			core.tlb.invalidate(pageNumber);	//the page was replaced before the shootdown arrived
+		}
+		while(true){
+			int currentFrame = pageTable.get(pageNumber);
+			if(currentFrame==-1){
+				currentFrame = handlePageFault(core,pageNumber);
+			}
+			int value = readFrame(pageNumber,currentFrame,offsetNumber);
+			if(value!=STALE){
+				core.tlb.insert(pageNumber,currentFrame);
+				return value;
+			}
+			Thread.onSpinWait();	//the frame is being replaced, look again
+		}
+	}
+
+	/*
+	 * This method reads one value of the page from the given frame without locking. It returns
+	 * STALE if the frame does not hold the page or was replaced during the read
+	 */
+	private int readFrame(int pageNumber,int currentFrame,int offsetNumber){
+		int before = version.get(currentFrame);
+		if((before&1)!=0 || owner.get(currentFrame)!=pageNumber){
+			return STALE;
+		}
+		int value = physicalMem.read((long)currentFrame*frameSize + offsetNumber);
+		VarHandle.acquireFence();	//the read above must happen before the version is checked
+		if(version.get(currentFrame)!=before){
+			return STALE;
+		}
+		if(referenced.get(currentFrame)==0){
+			referenced.lazySet(currentFrame,1);	//tell CLOCK the page was used
+		}
+		return value;
+	}
+
+	/*
+	 * This method loads the page unless another core already did and returns its frame
+	 */
+	public int handlePageFault(Core core,int pageNumber){
+		synchronized(locks[pageNumber&(STRIPES-1)]){
+			int currentFrame = pageTable.get(pageNumber);
+			if(currentFrame!=-1){
+				return currentFrame;	//loaded by another core meanwhile
+			}
+			currentFrame = takeFrame(core);	//the frame version is odd from here
+			backingStore.readPage(pageNumber,physicalMem,(long)currentFrame*frameSize);
+			owner.set(currentFrame,pageNumber);
+			referenced.set(currentFrame,0);
+			pageTable.set(pageNumber,currentFrame);
+			version.incrementAndGet(currentFrame);	//publish the page
+			core.pageFault++;
+			return currentFrame;
+		}
+	}
+
+	/*
+	 * This method returns a frame to load a page into, claimed by making its version odd:
+	 * a never used frame while there is one, otherwise the victim picked by the CLOCK hand
+	 */
+	private int takeFrame(Core core){
+		if(nextFrame.get()<frames){
+			int free = nextFrame.getAndIncrement();
+			if(free<frames && version.compareAndSet(free,0,1)){
+				return free;
+			}
+		}
+		while(true){
+			int slot = hand.getAndUpdate(h -> (h+1==frames)?0:h+1);
+			if(referenced.get(slot)!=0){
+				referenced.set(slot,0);	//give it a second chance
+				continue;
+			}
+			int before = version.get(slot);
+			if((before&1)!=0 || !version.compareAndSet(slot,before,before+1)){
+				continue;	//being replaced by another core
+			}
+			int victimPage = owner.get(slot);
+			if(victimPage!=-1){
+				pageTable.set(victimPage,-1);
+				owner.set(slot,-1);
+				shootdown(core,victimPage);
+			}
+			return slot;	//a never used frame the hand reached first needs no eviction
+		}
+	}
+
+	/*
+	 * This method removes the page from this core's TLB and asks every other core to do the same
+	 */
+	private void shootdown(Core core,int pageNumber){
+		core.tlb.invalidate(pageNumber);
+		int word = pageNumber>>>5;
+		int bit = 1<<(pageNumber&31);
+		for(Core other:cores){
+			if(other!=core){
+				setBit(other.shootdown,word,bit);
+				setBit(other.posted,word>>>5,1<<(word&31));	//after the page bit, so a drain that sees it finds the page
+				other.pending = true;
+				core.shootdownsSent++;
+			}
+		}
+	}
+
+	/*
+	 * This method sets the bits in the word of the bitmap, without a write if they are already set
+	 */
+	private static void setBit(AtomicIntegerArray bitmap,int word,int bit){
+		if((bitmap.get(word)&bit)==0){
+			bitmap.getAndAccumulate(word,bit,(a,b) -> a|b);
+		}
+	}
+
+	/*
+	 * This method drops every page posted to this core from its TLB. Only the words marked in
+	 * posted are read and cleared
+	 */
+	private void drainShootdowns(Core core){
+		core.pending = false;
+		for(int group=0;group<core.posted.length();group++){
+			if(core.posted.get(group)==0){
+				continue;
+			}
+			int words = core.posted.getAndSet(group,0);
+			while(words!=0){
+				int word = (group<<5)+Integer.numberOfTrailingZeros(words);
+				words &= words-1;
+				int bits = core.shootdown.getAndSet(word,0);
+				while(bits!=0){
+					int bit = Integer.numberOfTrailingZeros(bits);
+					core.tlb.invalidate((word<<5)+bit);
+					bits &= bits-1;
+				}
+			}
+		}
+	}
+
+	public void printStatistics(long elapsed){
+		long pageFault = 0,TLBHit = 0,totalAddress = 0,shootdowns = 0,checksum = 0;
+		for(Core core:cores){
+			pageFault += core.pageFault;
+			TLBHit += core.TLBHit;
+			totalAddress += core.totalAddress;
+			shootdowns += core.shootdownsSent;
+			checksum += core.checksum;
+		}
+		System.out.println("Threads: "+cores.length);
+		System.out.println("Page fault rate: "+(float)pageFault/totalAddress*100+'%');
+		System.out.println("TLB hit rate: "+(float)TLBHit/totalAddress*100+'%');
+		System.out.println("TLB shootdowns: "+shootdowns);
+		System.out.println("Checksum: "+checksum);
+		System.out.println("Addresses per second: "+(long)(totalAddress/(elapsed/1e9)));
+	}
+}
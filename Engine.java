@@ -0,0 +1,721 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public final class Engine implements Checkpoint.State {
+
+	/*
+	 * The simulator core shared by VirtualMemoryManager, Modification and AdditionalFunctionality,
+	 * which are presets of it (see their PRESET). One translation loop serves them all:
+	 *
+	 *   TLB -> (miss) replacement policy and page table -> (fault) backing store
+	 *
+	 * Each component is built once from an immutable SimulatorConfig, or passed in, and kept
+	 * in a final field, and the sizes are final fields too, so nothing on the loop reads a
+	 * mutable static. Optional parts are off unless attached before the run: dirty bits with
+	 * write-back (config.dirtyBits), prefetching (config.prefetch), huge pages
+	 * (config.hugePages), a compressed swap tier (config.compressedPool), a second-level TLB
+	 * and the page walk cost model (config.l2TLBSize, pwcSize, walkLatency), adaptive allocation,
+	 * checkpoints and live metrics. Each is guarded by one test, so a run without them takes
+	 * the same path as the plain loop.
+	 * */
+
+	public final SimulatorConfig config;
+	public final int frameSize;		//Size of each frame
+	public final int frames;		//Number of frames in physical memory
+	public final int pages;			//Number of pages in logical memory
+	public final boolean dirtyBits;	//true if writes are tracked and dirty pages written back
+
+	public final PhysicalMemory physicalMem;	//physical memory
+	public final PageTable pageTable;		//page table
+	public final TLB tlb;					//TLB table with LRU replacement
+	public final ReplacementPolicy policy;	//Tracks the resident pages and picks the victim
+	public final AddressDecoder decoder;	//Splits an address into page and offset
+	public final boolean[] dirty;			//dirty[page] is true if the page was written since it was loaded
+	public final int[] pageFrame;			//pageFrame[page] is the frame holding it, -1 if not resident
+	public BackingStore backingStore;		//Swap area, opened by readAddressesFromFile unless given
+	public WriteBackQueue writeBack;		//Dirty pages waiting to be written to swap area, if dirtyBits
+	public OutputSink output;				//Receives the translated addresses
+
+	public int frame;			//next never used frame
+	public int resident;		//Number of resident pages
+	public final int[] freeFrames;	//Frames released by shrinking the resident set
+	public int freeCount;
+
+	/*for statistics purpose*/
+	public long pageFault;
+	public long TLBHit;
+	public long totalAddress;
+
+	/*Prefetching, off unless config.prefetch is not "none"*/
+	public final Prefetcher prefetcher;		//Predicts the pages to read ahead
+	public final boolean[] prefetched;		//prefetched[page] is true while a prefetched page is still unused
+	public int pendingPrefetch;				//Number of predictions to load before the next reference
+	public final ReplacementPolicy shadow;	//The same policy without prefetching, to count the faults it would take
+	public int shadowUsed;
+	public long prefetches;					//Pages loaded by prefetching
+	public long prefetchHits;				//Prefetched pages used before their eviction
+	public long wastedPrefetches;			//Prefetched pages evicted without being used
+	public long shadowFaults;				//Page faults without prefetching
+
+	public final HugePages hugePages;	//Huge pages, null unless config.hugePages is set
+	private final byte[] moveBuffer;	//Frame contents swapped by a promotion
+	private final byte[] moveBuffer2;
+
+	public final CompressedSwap zswap;	//Compressed swap tier, null unless config.compressedPool is set
+	public final PageWalker walker;		//Cost of the TLB misses, null unless a walk option is set
+
+	public ResidentSet allocation;	//Adaptive allocation, null for a fixed one of every frame
+	public Metrics metrics;			//Live metrics, null unless asked for
+
+	/*Checkpoints, off unless attached*/
+	public Checkpoint checkpoint;	//Writes and restores the snapshots
+	public long checkpointEvery;	//Number of references between two snapshots
+	public boolean resume;			//true to start from the latest snapshot
+
+	public Engine(SimulatorConfig config){
+		this(config,
+				createTLB(config),
+				PageTable.create(config.pageTable,Integer.numberOfTrailingZeros(config.pages),config.frames),
+				ReplacementPolicy.create(config.policy,config.pages,config.frames));
+	}
+
+	/*
+	 * This method returns the TLB of the configuration, with room for the huge pages if they
+	 * share it, backed by a second level if config.l2TLBSize is set
+	 */
+	private static TLB createTLB(SimulatorConfig config){
+		int ways = (config.tlbWays==0)?config.tlbSize:config.tlbWays;
+		int regions = (config.hugePages>0)?config.pages/config.hugePages:0;
+		int keys = (config.hugeTLBSize==0)?config.pages+regions:config.pages;
+		if(config.l2TLBSize==0){
+			return new TLB(config.tlbSize,ways,keys);
+		}
+		return new TwoLevelTLB(config.tlbSize,ways,keys,TwoLevelTLB.secondLevel(config.l2TLBSize,config.pages+regions),0);
+	}
+
+	/*
+	 * The components are given instead of built from the names in the configuration, e.g. to
+	 * plug in a policy of one's own. They must be sized for the configuration
+	 */
+	public Engine(SimulatorConfig config,TLB tlb,PageTable pageTable,ReplacementPolicy policy){
+		this.config = config;
+		this.frameSize = config.frameSize;
+		this.frames = config.frames;
+		this.pages = config.pages;
+		this.dirtyBits = config.dirtyBits;
+		this.physicalMem = new PhysicalMemory(frames,frameSize);
+		this.pageTable = pageTable;
+		this.tlb = tlb;
+		this.policy = policy;
+		this.decoder = AddressDecoder.forSizes(pages,frameSize);
+		this.dirty = dirtyBits?new boolean[pages]:null;
+		this.pageFrame = new int[pages];
+		Arrays.fill(pageFrame,-1);
+		this.output = OutputSink.console(config.output,dirtyBits);
+		this.frame = 0;
+		this.freeFrames = new int[frames];
+		if(config.prefetch.equalsIgnoreCase("none")){
+			this.prefetcher = null;
+			this.prefetched = null;
+			this.shadow = null;
+		}else{
+			this.prefetcher = new Prefetcher(config.prefetch,pages,Math.max(1,frames/config.prefetchShare));
+			this.prefetched = new boolean[pages];
+			this.shadow = ReplacementPolicy.create(policy.name(),pages,frames);
+		}
+		this.zswap = (config.compressedPool==0)?null:new CompressedSwap(config.compressedPool,pages,frameSize);
+		if(config.walkLatency>0 || config.pwcSize>0 || config.l2TLBSize>0){
+			this.walker = new PageWalker(pageTable,pages,config.pwcSize,config.walkLatency);
+		}else{
+			this.walker = null;
+		}
+		if(config.hugePages==0){
+			this.hugePages = null;
+			this.moveBuffer = null;
+			this.moveBuffer2 = null;
+		}else{
+			this.hugePages = new HugePages(config,tlb);
+			this.moveBuffer = new byte[frameSize];
+			this.moveBuffer2 = new byte[frameSize];
+			/*every frame starts on the free list, in the order frame++ would use them, so a promotion can take any free frame*/
+			for(int i=0;i<frames;i++){
+				freeFrames[i] = frames-1-i;
+			}
+			this.freeCount = frames;
+			this.frame = frames;
+		}
+	}
+
+	/*
+	 * This method runs a preset as a program: it applies the command line options to the
+	 * configuration, attaches the optional parts asked for and translates the trace. Every
+	 * option is read before anything is opened, so an unknown one stops the program first
+	 */
+	public static void main(String[] args,SimulatorConfig preset,String name){
+		Options options = new Options(args);
+		if(options.count()!=1 && options.count()!=2){
+			System.out.println("Please specify a file name");
+			System.out.println("Usage: java "+name+" "+SimulatorConfig.USAGE);
+			return;
+		}
+		try{
+			SimulatorConfig config = preset.with(options);
+			ResidentSet allocation = ResidentSet.create(options,config.pages,config.frames);
+			String out = options.get("out",null);
+			boolean async = options.has("async");
+			String checkpoint = options.get("checkpoint",null);
+			int every = (checkpoint!=null)?options.getInt("every",1000000):0;
+			boolean resume = (checkpoint!=null) && options.has("resume");
+			options.checkUsed(Metrics.OPTIONS);
+			Engine vm = new Engine(config);
+			if(out!=null || async){
+				vm.output = OutputSink.create(config.output,out,async,config.dirtyBits);
+			}
+			vm.metrics = Metrics.create(options,vm.pages,name);
+			vm.allocation = allocation;
+			if(checkpoint!=null){
+				vm.enableCheckpoints(checkpoint,every,resume);
+			}
+			vm.readAddressesFromFile(options.get(0,null));	//read the provided addresses and translate them
+		}catch(IllegalArgumentException e){
+			System.out.println("Error: "+e.getMessage());
+		}catch(IOException e){
+			System.out.println("Error: output cannot be opened: "+e.getMessage());
+		}
+	}
+
+	/*
+	 * This method turns on a snapshot every "every" references, written as prefix.N, and
+	 * resuming from the latest one if resume is true. Resuming seeks in a FIXED binary trace
+	 * but re-reads a text or DELTA trace up to the snapshot (see Checkpoint)
+	 */
+	public void enableCheckpoints(String prefix,long every,boolean resume){
+		if(every<1){
+			throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+		}
+		if(prefetcher!=null || hugePages!=null){
+			throw new IllegalArgumentException("Checkpoints cannot be combined with prefetching or huge pages");
+		}
+		this.checkpoint = new Checkpoint(prefix,this,physicalMem,frames,frameSize);
+		this.checkpointEvery = every;
+		this.resume = resume;
+	}
+
+	/*
+	 * This method will search for the given page number in TLB table and return
+	 * related frame number. If it can't be found, this method returns -1
+	 */
+	public int searchTLB(int pageNumber){
+		return tlb.lookup(pageNumber);
+	}
+
+	/*
+	 * This method uses LRU to update TLB page and returns the TLB entry used
+	 */
+	public int updateTLB(int frameNumber,int pageNumber){
+		return tlb.insert(pageNumber,frameNumber);
+	}
+
+	public void printTLB(){
+		tlb.print();
+	}
+
+	/*
+	 * This method translates one logical address, marking its page dirty on a write if
+	 * dirty bits are tracked, and returns the physical address
+	 */
+	public long translate(long number,boolean write) throws IOException{
+		int pageNumber = (int)decoder.page(number);		//get page number in decimal
+		int offsetNumber = decoder.offset(number);		//get offset number in decimal
+		int currentFrame;
+		totalAddress++;
+		if(allocation!=null && resident>allocation.limit){
+			shrink();	//the allocation shrank at the previous reference
+		}
+		if(prefetcher!=null){
+			prefetch();
+			trackShadow(pageNumber);
+		}
+		int TLBIndex = (hugePages!=null)?hugePages.lookup(pageNumber):-1;	//huge-page entries are searched first
+		boolean hugeHit = TLBIndex!=-1;
+		if(!hugeHit){
+			TLBIndex = searchTLB(pageNumber);			//search TLB table
+		}
+		if(metrics!=null){
+			metrics.reference(pageNumber,TLBIndex!=-1);
+		}
+
+		if(TLBIndex!=-1){
+			/*TLB hits!*/
+			TLBHit++;	//for statistics purpose
+			TLB entries = hugeHit?hugePages.tlb:tlb;
+			currentFrame = entries.frame[TLBIndex] + (hugeHit?hugePages.slot(pageNumber):0);
+			policy.access(pageNumber);	//tell the policy the page was used
+			if(allocation!=null){
+				allocation.reference(pageNumber,false);
+			}
+			if(dirtyBits && write){
+				entries.dirty[TLBIndex] = 1;
+				dirty[pageNumber] = true;
+			}
+			return (long)currentFrame*frameSize + offsetNumber;
+		}
+		long entriesRead = 0;	//entries read by the walk of this page, 0 on a fault (see PageWalker)
+		boolean fault = !policy.contains(pageNumber);
+		if(allocation!=null){
+			allocation.reference(pageNumber,fault);	//may change the allocation before the page is loaded
+		}
+		if(fault){
+			/*
+			 * Handling page fault.
+			 * Since frame number is smaller than page number, page fault may happen more than one time
+			 * per page.
+			 */
+			pageFault++;
+			long faultStart = (metrics!=null)?System.nanoTime():0;
+			currentFrame = handlePageFault(pageNumber);
+			if(metrics!=null){
+				metrics.pageFault(pageNumber,System.nanoTime()-faultStart);
+			}
+			if(prefetcher!=null){
+				pendingPrefetch = prefetcher.miss(pageNumber,true);
+			}
+			if(hugePages!=null){
+				promote(pageNumber);
+				currentFrame = pageFrame[pageNumber];	//the promotion may have moved it
+			}
+		}else{
+			/*page number is already resident. No page fault*/
+			entriesRead = pageTable.entriesRead();
+			currentFrame = pageTable.lookup(pageNumber);		//read frame from page table
+			entriesRead = pageTable.entriesRead()-entriesRead;
+			if(prefetched!=null && prefetched[pageNumber]){
+				/*a fault avoided by prefetching*/
+				policy.activate(pageNumber);	//its first use, it leaves the low priority of prefetched pages
+				prefetched[pageNumber] = false;
+				prefetchHits++;
+				pendingPrefetch = prefetcher.miss(pageNumber,false);
+			}else{
+				policy.access(pageNumber);	//tell the policy the page was used
+			}
+		}
+		if(walker!=null){
+			walker.walk(pageNumber,entriesRead,hugePages!=null && hugePages.isHuge(pageNumber));
+		}
+		if(hugePages!=null && hugePages.isHuge(pageNumber)){
+			int TLBEntry = hugePages.insert(pageNumber,currentFrame);	//one entry for the whole huge page
+			if(dirtyBits && write){
+				hugePages.tlb.dirty[TLBEntry] = 1;
+				dirty[pageNumber] = true;
+			}
+			return (long)currentFrame*frameSize + offsetNumber;
+		}
+		int TLBEntry = updateTLB(currentFrame,pageNumber);	//update TLB
+		if(dirtyBits && write){
+			tlb.dirty[TLBEntry] = 1;
+			dirty[pageNumber] = true;
+		}
+		return (long)currentFrame*frameSize + offsetNumber;	//get physical address
+	}
+
+	/*
+	 * This method loads the given page into a free frame, or into the frame of the victim
+	 * page picked by the replacement policy, and returns that frame
+	 */
+	public int handlePageFault(int pageNumber) throws IOException{
+		return loadPage(pageNumber,false);
+	}
+
+	/*
+	 * This method loads the page as handlePageFault does. A prefetched page is inserted cold,
+	 * at the lowest priority of the policy
+	 */
+	private int loadPage(int pageNumber,boolean prefetch) throws IOException{
+		int limit = (allocation==null)?frames:allocation.limit;
+		while(resident>=limit){
+			/*A victim page need to be replaced, more than one if the allocation shrank*/
+			freeFrames[freeCount++] = evictPage((resident==limit)?pageNumber:-1);
+		}
+		int currentFrame = (freeCount>0)?freeFrames[--freeCount]:frame++;
+		if(prefetch){
+			policy.insertCold(pageNumber);
+		}else{
+			policy.insert(pageNumber);	//update replacement policy
+		}
+		resident++;
+		long frameStartPoint = (long)currentFrame*frameSize;
+		long readStart = (metrics!=null)?System.nanoTime():0;
+		int pooled = (zswap!=null)?zswap.load(pageNumber,physicalMem,frameStartPoint):CompressedSwap.MISS;
+		if(pooled!=CompressedSwap.MISS){
+			/*decompressed from the compressed swap tier, no read of the swap area*/
+			if(dirtyBits){
+				dirty[pageNumber] = pooled==CompressedSwap.DIRTY;
+			}
+		}else if(dirtyBits){
+			writeBack.readPage(pageNumber,physicalMem,frameStartPoint);	//a page still queued is read from the queue
+			dirty[pageNumber] = false;
+		}else{
+			backingStore.readPage(pageNumber,physicalMem,frameStartPoint);	//copy the whole page from swap area
+		}
+		if(metrics!=null){
+			metrics.io(System.nanoTime()-readStart);
+		}
+		pageTable.map(pageNumber,currentFrame);		//update page table
+		pageFrame[pageNumber] = currentFrame;
+		if(hugePages!=null){
+			hugePages.loaded(pageNumber,currentFrame);
+		}
+		if(checkpoint!=null){
+			checkpoint.markChanged(currentFrame);
+		}
+		return currentFrame;
+	}
+
+	/*
+	 * This method evicts the policy's victim to make room for newPage (-1 if none), queues it
+	 * for writing if it is dirty and returns the frame it held. The frame is read from
+	 * pageFrame, so an eviction is not counted as a page table walk
+	 */
+	private int evictPage(int newPage) throws IOException{
+		int victimPage = policy.evict(newPage);
+		int currentFrame = pageFrame[victimPage];
+		pageFrame[victimPage] = -1;
+		pageTable.unmap(victimPage);
+		tlb.invalidate(victimPage);	//the victim must not hit in TLB any more
+		if(hugePages!=null){
+			hugePages.evicted(victimPage,currentFrame);	//demotes its huge page
+		}
+		resident--;
+		if(zswap!=null && zswap.store(victimPage,physicalMem,(long)currentFrame*frameSize,dirtyBits && dirty[victimPage])){
+			/*kept compressed in memory, a dirty page is written when the tier evicts it*/
+		}else if(dirtyBits && dirty[victimPage]){
+			/*queue current value in physical memory to be written into swap area*/
+			long writeStart = (metrics!=null)?System.nanoTime():0;
+			writeBack.enqueue(victimPage,physicalMem,(long)currentFrame*frameSize);
+			if(metrics!=null){
+				metrics.writeBack(System.nanoTime()-writeStart);
+			}
+		}
+		if(metrics!=null){
+			metrics.eviction();
+		}
+		if(prefetched!=null && prefetched[victimPage]){
+			prefetched[victimPage] = false;
+			wastedPrefetches++;
+			prefetcher.wasted();
+		}
+		return currentFrame;
+	}
+
+	/*
+	 * This method releases frames until the resident set fits the allocation
+	 */
+	public void shrink() throws IOException{
+		while(resident>allocation.limit){
+			freeFrames[freeCount++] = evictPage(-1);
+		}
+	}
+
+	/*
+	 * This method loads the pages predicted at the previous reference, as a read-ahead that
+	 * completes after the reference that triggered it. Free frames are used first; once memory
+	 * is full a prefetched page replaces the policy's victim. The pages are inserted cold, so
+	 * one that stays unused is evicted before the pages in use. The window is bounded by a
+	 * share of the frames and shrinks with waste
+	 */
+	public void prefetch() throws IOException{
+		for(int i=0;i<pendingPrefetch;i++){
+			int pageNumber = prefetcher.candidates[i];
+			if(policy.contains(pageNumber)){
+				continue;
+			}
+			loadPage(pageNumber,true);
+			prefetched[pageNumber] = true;
+			prefetches++;
+		}
+		pendingPrefetch = 0;
+	}
+
+	/*
+	 * This method promotes the region of the page to a huge page once promoteAt of its base
+	 * pages are resident: the missing ones are loaded, then the pages are moved into an
+	 * aligned block of frames, swapping with the pages in the way. The page itself is
+	 * resident on return, even if the promotion fails. It returns true if the region was promoted
+	 */
+	private boolean promote(int pageNumber) throws IOException{
+		int region = hugePages.region(pageNumber);
+		int limit = (allocation==null)?frames:allocation.limit;
+		if(hugePages.huge[region] || hugePages.resident[region]<hugePages.promoteAt || limit<hugePages.size){
+			return false;
+		}
+		int first = region<<hugePages.shift;
+		int size = hugePages.size;
+		for(int i=0;i<size;i++){
+			if(!policy.contains(first+i)){
+				handlePageFault(first+i);
+				hugePages.promotionLoads++;
+			}
+		}
+		if(!policy.contains(pageNumber)){
+			handlePageFault(pageNumber);	//loading the others evicted it
+			hugePages.promotionLoads++;
+		}
+		int block = (hugePages.resident[region]==size)?hugePages.findBlock(region):-1;
+		if(block==-1){
+			hugePages.failedPromotions++;	//loading evicted a page of the region, or every block is taken
+			return false;
+		}
+		for(int i=0;i<size;i++){
+			int source = pageFrame[first+i];
+			if(source!=block+i){
+				moveFrame(first+i,source,block+i);
+			}
+			tlb.invalidate(first+i);	//the huge-page entry replaces the base-page ones
+		}
+		hugePages.promote(region);
+		return true;
+	}
+
+	/*
+	 * This method moves the page from its frame to the target frame. The page in the target
+	 * frame, if any, takes the frame left, otherwise the left frame replaces the target on
+	 * the free list
+	 */
+	private void moveFrame(int pageNumber,int source,int target){
+		int other = hugePages.framePage[target];
+		physicalMem.store((long)source*frameSize,moveBuffer);
+		pageTable.unmap(pageNumber);
+		if(other!=-1){
+			physicalMem.store((long)target*frameSize,moveBuffer2);
+			physicalMem.load((long)source*frameSize,moveBuffer2);
+			pageTable.unmap(other);
+			pageTable.map(other,source);
+			pageFrame[other] = source;
+			tlb.invalidate(other);
+			hugePages.moved(other,target,source);
+		}else{
+			for(int i=0;i<freeCount;i++){
+				if(freeFrames[i]==target){
+					freeFrames[i] = source;
+					break;
+				}
+			}
+		}
+		physicalMem.load((long)target*frameSize,moveBuffer);
+		pageTable.map(pageNumber,target);
+		pageFrame[pageNumber] = target;
+		hugePages.moved(pageNumber,source,target);
+	}
+
+	/*
+	 * This method follows the reference on the policy without prefetching
+	 */
+	private void trackShadow(int pageNumber){
+		if(shadow.contains(pageNumber)){
+			shadow.access(pageNumber);
+			return;
+		}
+		shadowFaults++;
+		if(shadowUsed>=frames){
+			shadow.evict(pageNumber);
+		}else{
+			shadowUsed++;
+		}
+		shadow.insert(pageNumber);
+	}
+
+	/*
+	 * This method reads the addresses from file and converts them to physical addresses
+	 * */
+	public void readAddressesFromFile(String fileName){
+		try {
+			if(backingStore==null){
+				backingStore = new BackingStore(config.backingStore,frameSize,dirtyBits);
+			}
+			if(dirtyBits){
+				writeBack = new WriteBackQueue(backingStore);
+				if(zswap!=null){
+					zswap.writeBack = writeBack;
+				}
+			}
+			TraceReader trace = TraceReader.open(fileName);	//text or binary trace
+			if(checkpoint!=null && resume){
+				long position;
+				try{
+					position = checkpoint.resume();
+				}catch(IOException e){
+					System.out.println("Error: checkpoint cannot be resumed: "+e.getMessage());
+					return;
+				}
+				trace.skip(position);	//the references before the checkpoint are done
+				System.out.println("Resumed at reference "+position);
+			}else if(checkpoint!=null){
+				checkpoint.clear();
+			}
+			int noDirtyBit = OutputSink.NO_DIRTY_BIT;
+			while(trace.next()){
+				long number = trace.address();			//Logical address in decimal
+				boolean write = dirtyBits && trace.isWrite();
+				long physicalAddress = translate(number,write);
+				output.record(number,physicalAddress,physicalMem.read(physicalAddress),dirtyBits?(write?1:0):noDirtyBit);
+				if(checkpoint!=null && totalAddress%checkpointEvery==0){
+					if(writeBack!=null){
+						writeBack.flush();	//the swap area must hold every page evicted so far
+					}
+					checkpoint.write(totalAddress,frame);
+				}
+			}
+			trace.close();
+			output.close();	//write the remaining output before the statistics
+			if(zswap!=null && writeBack!=null){
+				zswap.flush();	//the dirty pages still compressed go to the swap area
+			}
+			if(writeBack!=null){
+				writeBack.close();	//flush the dirty pages still queued
+			}
+			if(metrics!=null){
+				metrics.close();
+			}
+			backingStore.close();
+			System.out.println("Page fault rate: "+(float)pageFault/totalAddress*100+'%');
+			System.out.println("TLB hit rate: "+(float)TLBHit/totalAddress*100+'%');
+			if(!(pageTable instanceof FlatPageTable)){
+				printPageTableStatistics();
+			}
+			if(walker!=null){
+				printWalkStatistics();
+			}
+			if(prefetcher!=null){
+				printPrefetchStatistics();
+			}
+			if(hugePages!=null){
+				hugePages.printStatistics(totalAddress,TLBHit,frameSize);
+			}
+			if(zswap!=null){
+				zswap.printStatistics();
+			}
+			if(allocation!=null){
+				allocation.printStatistics();
+			}
+		}catch (IOException e) {
+			System.out.println("Error: specified file or line cannot be found");
+		}
+	}
+
+	public void printPageTableStatistics(){
+		System.out.println("Page table: "+pageTable.name()+", "+pageTable.footprint()+" bytes");
+		System.out.println("Entries read per walk: "+(float)pageTable.entriesRead()/pageTable.walks());
+	}
+
+	public void printWalkStatistics(){
+		long secondHits = 0;
+		TLB second = null;
+		if(tlb instanceof TwoLevelTLB){
+			second = ((TwoLevelTLB)tlb).second;
+			secondHits += ((TwoLevelTLB)tlb).secondHits;
+		}
+		if(hugePages!=null && !hugePages.unified && hugePages.tlb instanceof TwoLevelTLB){
+			secondHits += ((TwoLevelTLB)hugePages.tlb).secondHits;
+		}
+		walker.printStatistics(totalAddress-TLBHit+secondHits,secondHits,second);
+	}
+
+	public void printPrefetchStatistics(){
+		System.out.println("Prefetched pages: "+prefetches);
+		System.out.println("Prefetch hits: "+prefetchHits);
+		System.out.println("Wasted prefetches: "+wastedPrefetches);
+		System.out.println("Page faults without prefetching: "+shadowFaults);
+		System.out.println("Page faults avoided: "+(shadowFaults-pageFault));
+	}
+
+	/*
+	 * This method writes the page table, dirty bits, TLB, policy and statistics to a checkpoint
+	 */
+	public void save(DataOutputStream out) throws IOException{
+		out.writeInt(pages);
+		out.writeInt(frames);
+		out.writeUTF(policy.name());
+		out.writeInt(frame);
+		out.writeInt(resident);
+		Checkpoint.writeInts(out,freeFrames);
+		out.writeInt(freeCount);
+		out.writeLong(pageFault);
+		out.writeLong(TLBHit);
+		out.writeLong(totalAddress);
+		for(int i=0;i<pages;i++){
+			out.writeInt(pageFrame[i]);
+			out.writeBoolean(dirtyBits && dirty[i]);
+		}
+		tlb.save(out);
+		policy.save(out);
+		out.writeBoolean(allocation!=null);
+		if(allocation!=null){
+			allocation.save(out);
+		}
+		out.writeBoolean(zswap!=null);
+		if(zswap!=null){
+			zswap.save(out);
+		}
+		out.writeBoolean(walker!=null);
+		if(walker!=null){
+			walker.save(out);
+		}
+	}
+
+	/*
+	 * This method restores the state written by save()
+	 */
+	public void load(ByteBuffer in) throws IOException{
+		if(in.getInt()!=pages || in.getInt()!=frames){
+			throw new IOException("Checkpoint does not match the size of the simulation");
+		}
+		byte[] name = new byte[in.getShort()];
+		in.get(name);
+		if(!new String(name,StandardCharsets.UTF_8).equals(policy.name())){
+			throw new IOException("Checkpoint was taken with the "+new String(name,StandardCharsets.UTF_8)+" policy");
+		}
+		frame = in.getInt();
+		resident = in.getInt();
+		Checkpoint.readInts(in,freeFrames);
+		freeCount = in.getInt();
+		pageFault = in.getLong();
+		TLBHit = in.getLong();
+		totalAddress = in.getLong();
+		for(int i=0;i<pages;i++){
+			int f = in.getInt();
+			boolean d = in.get()!=0;
+			if(f!=-1){
+				pageTable.map(i,f);
+			}else{
+				pageTable.unmap(i);
+			}
+			pageFrame[i] = f;
+			if(dirtyBits){
+				dirty[i] = d;
+			}
+		}
+		tlb.load(in);
+		policy.load(in);
+		if((in.get()!=0)!=(allocation!=null)){
+			throw new IOException("Checkpoint was taken with a different allocation");
+		}
+		if(allocation!=null){
+			allocation.load(in);
+		}
+		if((in.get()!=0)!=(zswap!=null)){
+			throw new IOException("Checkpoint was taken with a different compressed swap tier");
+		}
+		if(zswap!=null){
+			zswap.load(in);
+		}
+		if((in.get()!=0)!=(walker!=null)){
+			throw new IOException("Checkpoint was taken without the same page walk model");
+		}
+		if(walker!=null){
+			walker.load(in);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+public class FlatPageTable implements PageTable {
+
+	/*
+	 * One entry per page of the address space, the original layout. A lookup reads one entry,
+	 * but the table is sized by the address space, so it only suits small ones.
+	 * */
+
+	public static int MAX_PAGE_BITS = 28;	//Largest address space a flat table may cover
+
+	public int[] frameOf;		//frameOf[page] is its frame, -1 if not mapped
+	public long walks;
+	public long entriesRead;
+
+	public FlatPageTable(int pageBits){
+		if(pageBits>MAX_PAGE_BITS){
+			throw new IllegalArgumentException("A flat page table cannot cover "+pageBits+" page bits, use radix or inverted");
+		}
+		this.frameOf = new int[1<<pageBits];
+		for(int i=0;i<frameOf.length;i++){
+			frameOf[i] = -1;
+		}
+	}
+
+	public int lookup(long page){
+		walks++;
+		entriesRead++;
+		return frameOf[(int)page];
+	}
+
+	public void map(long page,int frame){
+		frameOf[(int)page] = frame;
+	}
+
+	public void unmap(long page){
+		frameOf[(int)page] = -1;
+	}
+
+	public long footprint(){
+		return (long)frameOf.length*4;
+	}
+
+	public long walks(){
+		return walks;
+	}
+
+	public long entriesRead(){
+		return entriesRead;
+	}
+
+	public String name(){
+		return "flat";
+	}
+}
@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+public class FrameLists {
+
+	/*
+	 * Doubly-linked lists of frame numbers threaded through int arrays, for keeping frames in
+	 * LRU order. Unlike PageLists the number of lists grows on demand, so there can be one list
+	 * per process without knowing the number of processes in advance. A frame is in at most
+	 * one list of a FrameLists; the head of a list is the most recently used frame.
+	 * */
+
+	public int[] prev;		//prev[frame] is the frame closer to the head, -1 at the head
+	public int[] next;		//next[frame] is the frame closer to the tail, -1 at the tail
+	public int[] head;		//head[l] is the first frame of list l, -1 if empty
+	public int[] tail;		//tail[l] is the last frame of list l, -1 if empty
+	public int[] size;		//Number of frames in each list
+
+	public FrameLists(int frames,int lists){
+		this.prev = new int[frames];
+		this.next = new int[frames];
+		this.head = new int[0];
+		this.tail = new int[0];
+		this.size = new int[0];
+		ensureLists(lists);
+	}
+
+	/*
+	 * This method makes room for lists 0 to lists-1
+	 */
+	public void ensureLists(int lists){
+		if(lists<=head.length){
+			return;
+		}
+		int old = head.length;
+		int capacity = Math.max(lists,old*2);
+		head = Arrays.copyOf(head,capacity);
+		tail = Arrays.copyOf(tail,capacity);
+		size = Arrays.copyOf(size,capacity);
+		for(int l=old;l<capacity;l++){
+			head[l] = -1;
+			tail[l] = -1;
+		}
+	}
+
+	/*
+	 * This method makes room for frames 0 to frames-1
+	 */
+	public void ensureFrames(int frames){
+		if(frames>prev.length){
+			int capacity = Math.max(frames,prev.length*2);
+			prev = Arrays.copyOf(prev,capacity);
+			next = Arrays.copyOf(next,capacity);
+		}
+	}
+
+	public void pushFront(int l,int frame){
+		prev[frame] = -1;
+		next[frame] = head[l];
+		if(head[l]!=-1){
+			prev[head[l]] = frame;
+		}else{
+			tail[l] = frame;
+		}
+		head[l] = frame;
+		size[l]++;
+	}
+
+	public void remove(int l,int frame){
+		int p = prev[frame];
+		int n = next[frame];
+		if(p!=-1){
+			next[p] = n;
+		}else{
+			head[l] = n;
+		}
+		if(n!=-1){
+			prev[n] = p;
+		}else{
+			tail[l] = p;
+		}
+		size[l]--;
+	}
+
+	public void moveToFront(int l,int frame){
+		if(head[l]!=frame){
+			remove(l,frame);
+			pushFront(l,frame);
+		}
+	}
+
+	/*
+	 * This method returns the least recently used frame of the list, or -1 if it is empty
+	 */
+	public int last(int l){
+		return tail[l];
+	}
+}
@@ -0,0 +1,74 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+public class Histogram {
+
+	/*
+	 * Latency histogram with one bucket per power of two, so recording a value is a few
+	 * instructions and never allocates. Bucket b counts the values v with 2^(b-1) <= v < 2^b
+	 * (bucket 0 counts zeros); percentiles are reported as the upper bound of their bucket.
+	 * One thread records and others may read, so the fields are written and read in opaque
+	 * mode, as in Metrics.
+	 * */
+
+	static final VarHandle COUNT;
+	static final VarHandle SUM;
+	static final VarHandle MAX;
+	static{
+		try{
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			COUNT = lookup.findVarHandle(Histogram.class,"count",long.class);
+			SUM = lookup.findVarHandle(Histogram.class,"sum",long.class);
+			MAX = lookup.findVarHandle(Histogram.class,"max",long.class);
+		}catch(ReflectiveOperationException e){
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public long[] buckets;
+	public long count;
+	public long sum;
+	public long max;
+
+	public Histogram(){
+		this.buckets = new long[64];
+	}
+
+	public void record(long value){
+		if(value<0){
+			value = 0;
+		}
+		int b = 64-Long.numberOfLeadingZeros(value);
+		Metrics.LONGS.setOpaque(buckets,b,buckets[b]+1);
+		COUNT.setOpaque(this,count+1);
+		SUM.setOpaque(this,sum+value);
+		if(value>max){
+			MAX.setOpaque(this,value);
+		}
+	}
+
+	public double mean(){
+		long count = (long)COUNT.getOpaque(this);
+		return (count==0)?0:(double)(long)SUM.getOpaque(this)/count;
+	}
+
+	/*
+	 * This method returns the value below which the given fraction (0 to 1) of the values fall
+	 */
+	public long percentile(double fraction){
+		long total = (long)COUNT.getOpaque(this);
+		if(total==0){
+			return 0;
+		}
+		long max = (long)MAX.getOpaque(this);
+		long rank = (long)Math.ceil(fraction*total);
+		long seen = 0;
+		for(int b=0;b<buckets.length;b++){
+			seen += (long)Metrics.LONGS.getOpaque(buckets,b);
+			if(seen>=rank){
+				return (b==0)?0:Math.min(max,(1L<<b)-1);
+			}
+		}
+		return max;
+	}
+}
@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+public class HugePages {
+
+	/*
+	 * Huge pages for an Engine: an aligned region of "size" base pages becomes one huge page
+	 * held in an aligned block of "size" frames, so a single TLB entry maps the whole region.
+	 *
+	 * - Promotion: when a fault leaves promoteAt base pages of a region resident, the engine
+	 *   loads the missing ones and moves the pages into the block of frames that needs the
+	 *   fewest moves, one holding no page of another huge page. The moved pages are counted
+	 *   as migrations, the cost of forming huge pages.
+	 * - Demotion: the replacement policy still sees base pages, so when it evicts one page of
+	 *   a huge page the region is demoted and the rest stays resident as base pages.
+	 * - TLB: huge pages get their own TLB ("split"), or share the base-page TLB ("unified"),
+	 *   where a region is cached under the key pages+region. The huge-page entries are
+	 *   searched first.
+	 *
+	 * A TLB of base pages only, of the same size and levels, follows the same references and evictions,
+	 * so the misses saved by huge pages are reported next to the hit rate of each page size.
+	 * */
+
+	public int size;			//Base pages per huge page
+	public int shift;			//log2(size)
+	public int pages;			//Number of base pages
+	public int promoteAt;		//Resident base pages of a region that start its promotion
+	public boolean unified;		//true if huge pages share the base-page TLB
+	public TLB tlb;				//TLB holding the huge pages
+	public TLB baseline;		//Base-page TLB alone, to count the misses without huge pages
+
+	public boolean[] huge;		//huge[region] is true while the region is a huge page
+	public int[] resident;		//resident[region] is the number of its base pages resident
+	public int[] framePage;		//framePage[frame] is the page it holds, -1 if free
+
+	/*for statistics purpose*/
+	public long hugeReferences;		//References to a page of a huge page
+	public long hugeHits;			//TLB hits on a huge-page entry
+	public long baselineMisses;		//TLB misses without huge pages
+	public int promotions;
+	public int failedPromotions;	//Promotions given up: a page could not be kept or no block was free
+	public int demotions;
+	public long migrations;			//Pages moved to another frame by promotions
+	public long promotionLoads;		//Pages loaded to fill a region before its promotion
+
+	public HugePages(SimulatorConfig config,TLB base){
+		this.size = config.hugePages;
+		this.shift = Integer.numberOfTrailingZeros(size);
+		this.pages = config.pages;
+		this.promoteAt = (config.promoteAt==0)?size:config.promoteAt;
+		this.unified = config.hugeTLBSize==0;
+		int regions = pages>>shift;
+		if(unified){
+			if(base.slotOf.length<pages+regions){
+				throw new IllegalArgumentException("A unified TLB must have room for the huge pages");
+			}
+			this.tlb = base;
+		}else if(base instanceof TwoLevelTLB){
+			/*the second level is unified: it holds the regions after the pages*/
+			this.tlb = new TwoLevelTLB(config.hugeTLBSize,config.hugeTLBSize,regions,((TwoLevelTLB)base).second,pages);
+		}else{
+			this.tlb = new TLB(config.hugeTLBSize,config.hugeTLBSize,regions);
+		}
+		if(base instanceof TwoLevelTLB){
+			TLB second = ((TwoLevelTLB)base).second;
+			this.baseline = new TwoLevelTLB(base.size,base.ways,pages,TwoLevelTLB.secondLevel(second.size,pages),0);
+		}else{
+			this.baseline = new TLB(base.size,base.ways,pages);
+		}
+		this.huge = new boolean[regions];
+		this.resident = new int[regions];
+		this.framePage = new int[config.frames];
+		Arrays.fill(framePage,-1);
+	}
+
+	public int region(int page){
+		return page>>>shift;
+	}
+
+	/*
+	 * This method returns the position of the page in its huge page
+	 */
+	public int slot(int page){
+		return page&(size-1);
+	}
+
+	private int key(int region){
+		return unified?pages+region:region;
+	}
+
+	/*
+	 * This method returns the entry mapping the huge page of the page, or -1 if the page is not
+	 * part of a huge page or its entry is not cached. It is called once per reference
+	 */
+	public int lookup(int page){
+		if(baseline.lookup(page)==-1){
+			baselineMisses++;
+			baseline.insert(page,0);
+		}
+		int region = page>>>shift;
+		if(!huge[region]){
+			return -1;
+		}
+		hugeReferences++;
+		int index = tlb.lookup(key(region));
+		if(index!=-1){
+			hugeHits++;
+		}
+		return index;
+	}
+
+	/*
+	 * This method caches the huge page of the page, whose frame is given, and returns the entry used
+	 */
+	public int insert(int page,int frame){
+		return tlb.insert(key(page>>>shift),frame-slot(page));
+	}
+
+	public boolean isHuge(int page){
+		return huge[page>>>shift];
+	}
+
+	public void loaded(int page,int frame){
+		resident[page>>>shift]++;
+		framePage[frame] = page;
+	}
+
+	/*
+	 * This method records the eviction of the page from the frame, demoting its huge page if it had one
+	 */
+	public void evicted(int page,int frame){
+		int region = page>>>shift;
+		if(huge[region]){
+			huge[region] = false;
+			tlb.invalidate(key(region));
+			demotions++;
+		}
+		resident[region]--;
+		framePage[frame] = -1;
+		baseline.invalidate(page);
+	}
+
+	/*
+	 * This method returns the first frame of the aligned block the region should be moved to,
+	 * the one already holding the most of its pages in place, or -1 if every block holds a
+	 * page of another huge page
+	 */
+	public int findBlock(int region){
+		int first = region<<shift;
+		int best = -1,bestInPlace = -1;
+		for(int start=0;start+size<=framePage.length;start+=size){
+			int inPlace = 0;
+			boolean taken = false;
+			for(int i=0;i<size && !taken;i++){
+				int page = framePage[start+i];
+				if(page==first+i){
+					inPlace++;
+				}else if(page!=-1 && huge[page>>>shift]){
+					taken = true;
+				}
+			}
+			if(!taken && inPlace>bestInPlace){
+				best = start;
+				bestInPlace = inPlace;
+			}
+		}
+		return best;
+	}
+
+	/*
+	 * This method records that the page moved from frame "from" to frame "to"
+	 */
+	public void moved(int page,int from,int to){
+		if(framePage[from]==page){
+			framePage[from] = -1;
+		}
+		framePage[to] = page;
+		migrations++;
+	}
+
+	/*
+	 * This method turns the region, whose pages now fill an aligned block, into a huge page
+	 */
+	public void promote(int region){
+		huge[region] = true;
+		promotions++;
+	}
+
+	public void printStatistics(long totalAddress,long TLBHit,int frameSize){
+		long baseReferences = totalAddress-hugeReferences;
+		long baseHits = TLBHit-hugeHits;
+		int hugeBytes = size*frameSize;
+		if(unified){
+			System.out.println("Huge pages: "+hugeBytes+" bytes, unified TLB of "+tlb.size+" entries");
+			System.out.println("TLB reach: "+(long)tlb.size*frameSize+" bytes with base pages, "+(long)tlb.size*hugeBytes+" bytes with huge pages");
+		}else{
+			System.out.println("Huge pages: "+hugeBytes+" bytes, split TLB of "+baseline.size+" + "+tlb.size+" entries");
+			System.out.println("TLB reach: "+(long)baseline.size*frameSize+" bytes of base pages, "+(long)tlb.size*hugeBytes+" bytes of huge pages");
+		}
+		System.out.println("Base page references: "+baseReferences+", TLB hit rate: "+(float)baseHits/Math.max(1,baseReferences)*100+'%');
+		System.out.println("Huge page references: "+hugeReferences+", TLB hit rate: "+(float)hugeHits/Math.max(1,hugeReferences)*100+'%');
+		System.out.println("Promotions: "+promotions+", failed: "+failedPromotions+", demotions: "+demotions);
+		System.out.println("Pages migrated: "+migrations+", loaded by promotion: "+promotionLoads);
+		System.out.println("TLB misses without huge pages: "+baselineMisses);
+		System.out.println("TLB misses avoided: "+(baselineMisses-(totalAddress-TLBHit)));
+	}
+}
@@ -0,0 +1,95 @@
+import java.util.Arrays;
+
+public class InvertedPageTable implements PageTable {
+
+	/*
+	 * Hashed inverted page table, with one entry per frame instead of one per page, so its
+	 * size depends on FRAMES only however large the address space is. A page number hashes to
+	 * an anchor, and the frames whose pages share that anchor are chained through their entries.
+	 * A lookup reads the anchor and then the entries of the chain until the page is found.
+	 * */
+
+	public long[] pageOf;		//pageOf[frame] is the page mapped to it, -1 if none
+	public int[] chain;			//chain[frame] is the next frame with the same anchor, -1 at the end
+	public int[] anchor;		//anchor[hash] is the first frame of the chain, -1 if empty
+	public int mask;			//anchor.length - 1
+	public long walks;
+	public long entriesRead;
+
+	public InvertedPageTable(int frames){
+		int anchors = Integer.highestOneBit(Math.max(1,frames-1))<<1;	//at least one anchor per frame
+		this.pageOf = new long[frames];
+		this.chain = new int[frames];
+		this.anchor = new int[anchors];
+		this.mask = anchors-1;
+		Arrays.fill(pageOf,-1);
+		Arrays.fill(anchor,-1);
+	}
+
+	private int hash(long page){
+		page ^= page>>>33;
+		page *= 0xff51afd7ed558ccdL;
+		page ^= page>>>33;
+		return (int)page&mask;
+	}
+
+	public int lookup(long page){
+		walks++;
+		entriesRead++;
+		int frame = anchor[hash(page)];
+		while(frame!=-1){
+			entriesRead++;
+			if(pageOf[frame]==page){
+				return frame;
+			}
+			frame = chain[frame];
+		}
+		return -1;
+	}
+
+	/*
+	 * The frame must not hold another page, unmap that one first
+	 */
+	public void map(long page,int frame){
+		int h = hash(page);
+		pageOf[frame] = page;
+		chain[frame] = anchor[h];
+		anchor[h] = frame;
+	}
+
+	public void unmap(long page){
+		int h = hash(page);
+		int previous = -1;
+		int frame = anchor[h];
+		while(frame!=-1 && pageOf[frame]!=page){
+			previous = frame;
+			frame = chain[frame];
+		}
+		if(frame==-1){
+			return;
+		}
+		if(previous==-1){
+			anchor[h] = chain[frame];
+		}else{
+			chain[previous] = chain[frame];
+		}
+		pageOf[frame] = -1;
+		chain[frame] = -1;
+	}
+
+	public long footprint(){
+		return (long)pageOf.length*8 + (long)chain.length*4 + (long)anchor.length*4;
+	}
+
+	public long walks(){
+		return walks;
+	}
+
+	public long entriesRead(){
+		return entriesRead;
+	}
+
+	public String name(){
+		return "inverted";
+	}
+}
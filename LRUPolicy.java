@@ -0,0 +1,64 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class LRUPolicy implements ReplacementPolicy {
+
+	/*
+	 * Least recently used replacement. Resident pages are kept in one intrusive list,
+	 * head is the most recently used page and tail is the victim.
+	 * */
+
+	public PageLists lists;
+	public int frames;			//number of frames
+	public ColdPages cold;		//Pages loaded ahead of their use, null until the first one
+
+	public LRUPolicy(int pages,int frames){
+		this.lists = new PageLists(pages,1);
+		this.frames = frames;
+	}
+
+	public boolean contains(int page){
+		return lists.listOf(page)!=-1 || (cold!=null && cold.contains(page));
+	}
+
+	public void access(int page){
+		lists.pushFront(0,page);	//move it to the front of the stack
+	}
+
+	public int evict(int newPage){
+		int victim = (cold!=null)?cold.evict(lists.size[0]>0):-1;
+		if(victim==-1){
+			victim = lists.removeLast(0);
+		}
+		return victim;
+	}
+
+	public void insert(int page){
+		lists.pushFront(0,page);
+	}
+
+	public void insertCold(int page){
+		if(cold==null){
+			cold = new ColdPages(lists.pages,frames);	//only prefetching inserts cold pages
+		}
+		cold.insert(page);
+	}
+
+	public void activate(int page){
+		cold.remove(page);
+		insert(page);
+	}
+
+	public String name(){
+		return "LRU";
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		lists.save(out);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		lists.load(in);
+	}
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+public class LongIntHashMap {
+
+	/*
+	 * Open addressing hash map from long keys to non-negative int values, with linear probing
+	 * and backward shift deletion. Nothing is boxed and nothing is allocated except when the
+	 * table grows, so it can sit on the translation path.
+	 * */
+
+	private static final long EMPTY = Long.MIN_VALUE;	//marks a free slot, cannot be used as a key
+
+	public long[] keys;
+	public int[] values;
+	public int size;		//Number of keys in the map
+	public int mask;		//Table length - 1
+
+	public LongIntHashMap(int expected){
+		int capacity = Integer.highestOneBit(Math.max(4,expected*2-1))<<1;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		this.mask = capacity-1;
+		this.size = 0;
+		Arrays.fill(keys,EMPTY);
+	}
+
+	private static int hash(long key){
+		key ^= key>>>33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key>>>33;
+		return (int)key;
+	}
+
+	/*
+	 * This method returns the value of the key, or -1 if the key is not in the map
+	 */
+	public int get(long key){
+		int i = hash(key)&mask;
+		while(true){
+			long k = keys[i];
+			if(k==key){
+				return values[i];
+			}
+			if(k==EMPTY){
+				return -1;
+			}
+			i = (i+1)&mask;
+		}
+	}
+
+	public void put(long key,int value){
+		int i = hash(key)&mask;
+		while(keys[i]!=EMPTY && keys[i]!=key){
+			i = (i+1)&mask;
+		}
+		if(keys[i]==EMPTY){
+			keys[i] = key;
+			size++;
+		}
+		values[i] = value;
+		if(size*2>keys.length){
+			grow();
+		}
+	}
+
+	/*
+	 * This method removes the key and moves back the keys probed past it
+	 */
+	public void remove(long key){
+		int i = hash(key)&mask;
+		while(keys[i]!=key){
+			if(keys[i]==EMPTY){
+				return;
+			}
+			i = (i+1)&mask;
+		}
+		size--;
+		int hole = i;
+		while(true){
+			i = (i+1)&mask;
+			long k = keys[i];
+			if(k==EMPTY){
+				break;
+			}
+			int home = hash(k)&mask;
+			//move k into the hole unless its home slot lies cyclically in (hole, i]
+			if(((i-home)&mask)>=((i-hole)&mask)){
+				keys[hole] = k;
+				values[hole] = values[i];
+				hole = i;
+			}
+		}
+		keys[hole] = EMPTY;
+	}
+
+	private void grow(){
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length*2];
+		values = new int[oldKeys.length*2];
+		mask = keys.length-1;
+		size = 0;
+		Arrays.fill(keys,EMPTY);
+		for(int i=0;i<oldKeys.length;i++){
+			if(oldKeys[i]!=EMPTY){
+				put(oldKeys[i],oldValues[i]);
+			}
+		}
+	}
+}
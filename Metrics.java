@@ -0,0 +1,226 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class Metrics implements MetricsMBean {
+
+	/*
+	 * Counters, latency histograms, a per-page fault heatmap and the working-set size of a run,
+	 * fed by the translation loop. Only the translating thread updates them, and nothing is
+	 * allocated per event. JMX and the MetricsLog thread read them while the run goes on, so
+	 * every counter is written and read through a VarHandle in opaque mode: a reader sees each
+	 * value whole and sees it grow, though the counters are not a snapshot of one instant and
+	 * can lag behind by a few references. Read them with the getters, not the fields.
+	 *
+	 * The working set is the number of distinct pages among the last WINDOW references. A ring
+	 * holds those references and lastUse[page] the time of the latest one, so a page leaves
+	 * the working set when the reference leaving the ring is its latest.
+	 * */
+
+	public static int WINDOW = 10000;	//Number of references of the working-set window
+	public static final String[] OPTIONS = {"metrics","interval","jmx","window"};	//Options read by create()
+
+	static final VarHandle REFERENCES;
+	static final VarHandle TLB_HITS;
+	static final VarHandle TLB_MISSES;
+	static final VarHandle PAGE_FAULTS;
+	static final VarHandle EVICTIONS;
+	static final VarHandle WRITE_BACKS;
+	static final VarHandle WORKING_SET;
+	static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+	static{
+		try{
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			REFERENCES = lookup.findVarHandle(Metrics.class,"references",long.class);
+			TLB_HITS = lookup.findVarHandle(Metrics.class,"TLBHits",long.class);
+			TLB_MISSES = lookup.findVarHandle(Metrics.class,"TLBMisses",long.class);
+			PAGE_FAULTS = lookup.findVarHandle(Metrics.class,"pageFaults",long.class);
+			EVICTIONS = lookup.findVarHandle(Metrics.class,"evictions",long.class);
+			WRITE_BACKS = lookup.findVarHandle(Metrics.class,"writeBacks",long.class);
+			WORKING_SET = lookup.findVarHandle(Metrics.class,"workingSet",int.class);
+		}catch(ReflectiveOperationException e){
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public long references;
+	public long TLBHits;
+	public long TLBMisses;
+	public long pageFaults;
+	public long evictions;
+	public long writeBacks;
+	public Histogram faultLatency;	//Time to service a page fault, in nanoseconds
+	public Histogram ioLatency;		//Time of each swap area read or write-back, in nanoseconds
+	public long[] faultsOf;			//faultsOf[page] is the number of faults of the page
+
+	public int window;				//Size of the working-set window
+	public int[] recent;			//Ring of the pages of the last window references
+	public long[] lastUse;			//lastUse[page] is the time of its latest reference, -1 if none
+	public int workingSet;			//Number of distinct pages in the window
+	public MetricsLog log;			//Periodic CSV and JSON log, null if none
+
+	public Metrics(int pages,int window){
+		if(window<1){
+			throw new IllegalArgumentException("Working-set window must be at least 1");
+		}
+		this.faultLatency = new Histogram();
+		this.ioLatency = new Histogram();
+		this.faultsOf = new long[pages];
+		this.window = window;
+		this.recent = new int[window];
+		this.lastUse = new long[pages];
+		for(int i=0;i<pages;i++){
+			lastUse[i] = -1;
+		}
+	}
+
+	/*
+	 * This method returns the metrics asked for on the command line: -metrics=PREFIX for the
+	 * periodic log (every -interval=MS, 1000 by default), -jmx for the MBean and -window=N for
+	 * the working-set window. It returns null if neither -metrics nor -jmx is given
+	 */
+	public static Metrics create(Options options,int pages,String name) throws IOException{
+		if(!options.has("metrics") && !options.has("jmx")){
+			return null;
+		}
+		Metrics metrics = new Metrics(pages,options.getInt("window",WINDOW));
+		if(options.has("jmx")){
+			metrics.register(name);
+		}
+		if(options.has("metrics")){
+			metrics.log = new MetricsLog(metrics,options.get("metrics",null),options.getInt("interval",1000));
+		}
+		return metrics;
+	}
+
+	/*
+	 * This method writes the final values to the log and closes it
+	 */
+	public void close() throws IOException{
+		if(log!=null){
+			log.close();
+		}
+	}
+
+	/*
+	 * This method registers the metrics with the platform MBean server under "vmm:type=Metrics,name=..."
+	 */
+	public void register(String name) throws IOException{
+		try{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,new ObjectName("vmm:type=Metrics,name="+name));
+		}catch(JMException e){
+			throw new IOException("Metrics cannot be registered: "+e.getMessage());
+		}
+	}
+
+	/*
+	 * This method records a reference to the page, and whether it hit in TLB
+	 */
+	public void reference(int page,boolean TLBHit){
+		long now = references;	//the fields are only written by this thread, so plain reads are current
+		REFERENCES.setOpaque(this,now+1);
+		if(TLBHit){
+			TLB_HITS.setOpaque(this,TLBHits+1);
+		}else{
+			TLB_MISSES.setOpaque(this,TLBMisses+1);
+		}
+		int size = workingSet;
+		int slot = (int)(now%window);
+		if(now>=window){
+			int leaving = recent[slot];
+			if(lastUse[leaving]==now-window){
+				size--;	//its latest reference leaves the window
+			}
+		}
+		if(lastUse[page]==-1 || lastUse[page]<=now-window){
+			size++;
+		}
+		WORKING_SET.setOpaque(this,size);
+		recent[slot] = page;
+		lastUse[page] = now;
+	}
+
+	public void pageFault(int page,long nanos){
+		PAGE_FAULTS.setOpaque(this,pageFaults+1);
+		LONGS.setOpaque(faultsOf,page,faultsOf[page]+1);
+		faultLatency.record(nanos);
+	}
+
+	public void eviction(){
+		EVICTIONS.setOpaque(this,evictions+1);
+	}
+
+	public void writeBack(long nanos){
+		WRITE_BACKS.setOpaque(this,writeBacks+1);
+		ioLatency.record(nanos);
+	}
+
+	public void io(long nanos){
+		ioLatency.record(nanos);
+	}
+
+	public long getReferences(){
+		return (long)REFERENCES.getOpaque(this);
+	}
+
+	public long getTLBHits(){
+		return (long)TLB_HITS.getOpaque(this);
+	}
+
+	public long getTLBMisses(){
+		return (long)TLB_MISSES.getOpaque(this);
+	}
+
+	public long getPageFaults(){
+		return (long)PAGE_FAULTS.getOpaque(this);
+	}
+
+	public long getEvictions(){
+		return (long)EVICTIONS.getOpaque(this);
+	}
+
+	public long getWriteBacks(){
+		return (long)WRITE_BACKS.getOpaque(this);
+	}
+
+	public float getTLBHitRate(){
+		long references = getReferences();
+		return (references==0)?0:(float)getTLBHits()/references*100;
+	}
+
+	public float getPageFaultRate(){
+		long references = getReferences();
+		return (references==0)?0:(float)getPageFaults()/references*100;
+	}
+
+	public int getWorkingSetSize(){
+		return (int)WORKING_SET.getOpaque(this);
+	}
+
+	public double getFaultLatencyMeanNanos(){
+		return faultLatency.mean();
+	}
+
+	public long getFaultLatencyP99Nanos(){
+		return faultLatency.percentile(0.99);
+	}
+
+	public double getIOLatencyMeanNanos(){
+		return ioLatency.mean();
+	}
+
+	public long getIOLatencyP99Nanos(){
+		return ioLatency.percentile(0.99);
+	}
+
+	public long[] getPageFaultHeatmap(){
+		long[] heatmap = new long[faultsOf.length];
+		for(int i=0;i<heatmap.length;i++){
+			heatmap[i] = (long)LONGS.getOpaque(faultsOf,i);
+		}
+		return heatmap;
+	}
+}
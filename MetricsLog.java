@@ -0,0 +1,157 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+public class MetricsLog implements Runnable {
+
+	/*
+	 * Writes the metrics every interval while a run goes on, as one CSV row to PREFIX.csv and
+	 * one JSON object per line to PREFIX.json; the JSON line also holds the fault heatmap.
+	 * Each log rolls over when it reaches MAX_BYTES: PREFIX.csv becomes PREFIX.csv.1, the
+	 * older files move up by one and at most KEEP of them are kept.
+	 * */
+
+	public static long MAX_BYTES = 10L<<20;	//Size at which a log rolls over
+	public static int KEEP = 5;				//Number of rolled over files kept
+
+	public static final String CSV_HEADER = "time_ms,references,tlb_hits,tlb_misses,page_faults,evictions,write_backs,"
+			+"working_set,fault_mean_ns,fault_p99_ns,io_mean_ns,io_p99_ns";
+
+	public Metrics metrics;
+	public long interval;			//Milliseconds between two rows
+	public RollingFile csv;
+	public RollingFile json;
+	public long start;
+	public Thread writer;
+	public volatile boolean stopped;
+	public IOException error;		//First error of the writer thread
+
+	/*A log file that rolls over at MAX_BYTES*/
+	public static class RollingFile {
+		public String name;
+		public String header;		//First line of every file, null if none
+		public Writer out;
+		public long written;
+
+		public RollingFile(String name,String header) throws IOException{
+			this.name = name;
+			this.header = header;
+			open();
+		}
+
+		private void open() throws IOException{
+			out = new FileWriter(name);
+			written = 0;
+			if(header!=null){
+				write(header);
+			}
+		}
+
+		public void write(String line) throws IOException{
+			if(written>0 && written+line.length()+1>MAX_BYTES){
+				roll();
+			}
+			out.write(line);
+			out.write('\n');
+			out.flush();
+			written += line.length()+1;
+		}
+
+		private void roll() throws IOException{
+			out.close();
+			new File(name+"."+KEEP).delete();
+			for(int i=KEEP-1;i>=1;i--){
+				new File(name+"."+i).renameTo(new File(name+"."+(i+1)));
+			}
+			new File(name).renameTo(new File(name+".1"));
+			open();
+		}
+
+		public void close() throws IOException{
+			out.close();
+		}
+	}
+
+	public MetricsLog(Metrics metrics,String prefix,long interval) throws IOException{
+		if(interval<1){
+			throw new IllegalArgumentException("Metrics interval must be at least 1 ms");
+		}
+		this.metrics = metrics;
+		this.interval = interval;
+		this.csv = new RollingFile(prefix+".csv",CSV_HEADER);
+		this.json = new RollingFile(prefix+".json",null);
+		this.start = System.currentTimeMillis();
+		this.writer = new Thread(this,"metrics-log");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	public void run(){
+		try{
+			while(!stopped){
+				Thread.sleep(interval);
+				if(!stopped){
+					write();
+				}
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}catch(IOException e){
+			error = e;
+		}
+	}
+
+	/*
+	 * This method writes the current values to both logs
+	 */
+	public synchronized void write() throws IOException{
+		Metrics m = metrics;
+		long time = System.currentTimeMillis()-start;
+		csv.write(time+","+m.getReferences()+","+m.getTLBHits()+","+m.getTLBMisses()+","+m.getPageFaults()+","+m.getEvictions()+","+m.getWriteBacks()+","
+				+m.getWorkingSetSize()+","+(long)m.getFaultLatencyMeanNanos()+","+m.getFaultLatencyP99Nanos()+","
+				+(long)m.getIOLatencyMeanNanos()+","+m.getIOLatencyP99Nanos());
+		long[] heatmap = m.getPageFaultHeatmap();
+		StringBuilder line = new StringBuilder(256+heatmap.length*4);
+		line.append("{\"time_ms\":").append(time)
+			.append(",\"references\":").append(m.getReferences())
+			.append(",\"tlb_hits\":").append(m.getTLBHits())
+			.append(",\"tlb_misses\":").append(m.getTLBMisses())
+			.append(",\"page_faults\":").append(m.getPageFaults())
+			.append(",\"evictions\":").append(m.getEvictions())
+			.append(",\"write_backs\":").append(m.getWriteBacks())
+			.append(",\"working_set\":").append(m.getWorkingSetSize())
+			.append(",\"fault_mean_ns\":").append((long)m.getFaultLatencyMeanNanos())
+			.append(",\"fault_p99_ns\":").append(m.getFaultLatencyP99Nanos())
+			.append(",\"io_mean_ns\":").append((long)m.getIOLatencyMeanNanos())
+			.append(",\"io_p99_ns\":").append(m.getIOLatencyP99Nanos())
+			.append(",\"fault_heatmap\":[");
+		for(int i=0;i<heatmap.length;i++){
+			if(i>0){
+				line.append(',');
+			}
+			line.append(heatmap[i]);
+		}
+		line.append("]}");
+		json.write(line.toString());
+	}
+
+	/*
+	 * This method stops the writer thread and writes the final values
+	 */
+	public void close() throws IOException{
+		stopped = true;
+		writer.interrupt();
+		try{
+			writer.join();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		if(error!=null){
+			throw error;
+		}
+		write();
+		csv.close();
+		json.close();
+	}
+}
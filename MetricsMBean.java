@@ -0,0 +1,21 @@
+public interface MetricsMBean {
+
+	/*
+	 * The metrics of a run as seen through JMX (e.g. in jconsole under "vmm")
+	 * */
+
+	long getReferences();
+	long getTLBHits();
+	long getTLBMisses();
+	long getPageFaults();
+	long getEvictions();
+	long getWriteBacks();
+	float getTLBHitRate();
+	float getPageFaultRate();
+	int getWorkingSetSize();
+	double getFaultLatencyMeanNanos();
+	long getFaultLatencyP99Nanos();
+	double getIOLatencyMeanNanos();
+	long getIOLatencyP99Nanos();
+	long[] getPageFaultHeatmap();
+}
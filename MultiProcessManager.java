@@ -0,0 +1,404 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+public class MultiProcessManager {
+
+	/*
+	 * Many processes sharing one physical memory. Every line of the trace starts with the
+	 * process ID of the reference (e.g. "3 16916"). Each process has its own address space:
+	 * its pages are looked up in a hashed page table under its ASID and its TLB entries are
+	 * tagged with the same ASID. A process costs nothing until it is first seen and nothing
+	 * is sized by the pages per process, so thousands of processes are cheap.
+	 *
+	 * Frames are allocated and replaced with LRU, either globally (any process can take the
+	 * least recently used frame of the machine) or locally (a process replaces its own pages
+	 * once it holds its share frames/processes, and takes the oldest frame of the machine while below it).
+	 * Every process reads its pages from the same swap area image.
+	 *
+	 * A tagged trace can also fork and end processes ("3 fork 7", "3 exit"). The child of a fork
+	 * shares every resident page of its parent instead of getting a copy: both map the same
+	 * page object (see SharedPages), which counts its mappings. The first write to a shared
+	 * page gives the writer a private copy in a new frame, and evicting a shared frame unmaps it
+	 * from every process that shares it. A frame is charged to one of its sharers for LRU and
+	 * quotas. The statistics then count the frames and the swap area reads saved by sharing.
+	 * */
+
+	/*frames are shared by all processes, pages is the size of each logical memory*/
+	public static final SimulatorConfig PRESET = SimulatorConfig.builder()
+		.frameSize(256).frames(128).pages(256)
+		.tlbSize(16).tlbWays(0)
+		.build();
+
+	public final SimulatorConfig config;
+	public final int frameSize;		//Size of each frame
+	public final int frames;		//Number of frames in physical memory, shared by all processes
+	public final boolean local;		//true for per-process allocation and replacement
+	public PhysicalMemory physicalMem;		//physical memory
+	public SharedPages pages;		//(ASID, page) to page objects, for the pages of every process
+	public int[] frameProcess;		//process charged for each frame
+	public int[] frameObject;		//page object held by each frame
+	public int frame;				//next never used frame
+	public int[] freeFrames;		//Frames released by processes that ended
+	public int freeCount;
+	public byte[] copyBuffer;		//Frame being copied on a write
+	public FrameLists globalLRU;	//all used frames, list 0
+	public FrameLists processLRU;	//frames of each process, one list per process
+	public TaggedTLB tlb;			//TLB table, entries tagged with the ASID
+	public AddressDecoder decoder;	//Splits an address into page and offset
+	public BackingStore backingStore;	//Swap area, opened once per run
+	public OutputSink output;		//Receives the translated addresses
+
+	/*Processes in the order they first appear. The index is used as ASID*/
+	public LongIntHashMap processIndex;	//process ID to index
+	public int processes;			//Number of processes seen
+	public int[] pid;				//process ID of each index
+	public long[] references;		//for statistics purpose
+	public long[] pageFaults;
+	public long[] TLBHits;
+
+	/*Sharing statistics*/
+	public long forks;
+	public long exits;
+	public long copies;				//Private copies made on writes to shared pages
+	public long readsSaved;			//References that found a shared page loaded for another process
+	public int sharedFrames;		//Frames private copies would need on top of the frames used now
+	public int peakSharedFrames;
+	public long sharedFramesSum;	//Sum of sharedFrames over every reference
+
+	public MultiProcessManager(SimulatorConfig config,boolean local){
+		this.config = config;
+		this.frameSize = config.frameSize;
+		this.frames = config.frames;
+		this.local = local;
+		this.physicalMem = new PhysicalMemory(frames,frameSize);
+		this.pages = new SharedPages(frames);
+		this.frameProcess = new int[frames];
+		this.frameObject = new int[frames];
+		this.frame = 0;
+		this.freeFrames = new int[frames];
+		this.copyBuffer = new byte[frameSize];
+		this.globalLRU = new FrameLists(frames,1);
+		this.processLRU = new FrameLists(frames,16);
+		this.tlb = new TaggedTLB(config.tlbSize,(config.tlbWays==0)?config.tlbSize:config.tlbWays);
+		this.decoder = AddressDecoder.forSizes(config.pages,frameSize);
+		this.output = OutputSink.console(config.output,false);
+		this.processIndex = new LongIntHashMap(16);
+		this.processes = 0;
+		this.pid = new int[16];
+		this.references = new long[16];
+		this.pageFaults = new long[16];
+		this.TLBHits = new long[16];
+	}
+
+	/*
+	 * Our program starts here
+	 */
+	public static void main(String[] args) {
+		Options options = new Options(args);
+		if(options.count()!=1){
+			System.out.println("Please specify a file name");
+			System.out.println("Usage: java MultiProcessManager trace.txt [-scope=global|local] [-frames=128] [-tlb=16] [-ways=16] [-output=text|binary|none] [-out=file] [-async]");
+		}else{
+			String fileName = options.get(0,null);
+			try{
+				SimulatorConfig.Builder builder = PRESET.toBuilder()
+					.frames(options.getInt("frames",PRESET.frames))
+					.tlbSize(options.getInt("tlb",PRESET.tlbSize))
+					.tlbWays(options.getInt("ways",PRESET.tlbWays));
+				String scope = options.get("scope","global");
+				if(!scope.equals("global") && !scope.equals("local")){
+					throw new IllegalArgumentException("Unknown scope: "+scope);
+				}
+				builder.output(options.get("output",PRESET.output));
+				String out = options.get("out",null);
+				boolean async = options.has("async");
+				options.checkUsed();
+				SimulatorConfig config = builder.build();
+				MultiProcessManager vm = new MultiProcessManager(config,scope.equals("local"));
+				if(out!=null || async){
+					vm.output = OutputSink.create(config.output,out,async,false);
+				}
+				vm.readAddressesFromFile(fileName);	//read the provided addresses and translate them
+			}catch(IllegalArgumentException e){
+				System.out.println("Error: "+e.getMessage());
+			}catch(IOException e){
+				System.out.println("Error: output cannot be opened: "+e.getMessage());
+			}
+		}
+	}
+
+	/*
+	 * This method returns the index of the process, registering it when it is first seen
+	 */
+	public int processOf(int processID){
+		int index = processIndex.get(processID);
+		if(index==-1){
+			index = processes++;
+			if(index==pid.length){
+				int capacity = pid.length*2;
+				pid = Arrays.copyOf(pid,capacity);
+				references = Arrays.copyOf(references,capacity);
+				pageFaults = Arrays.copyOf(pageFaults,capacity);
+				TLBHits = Arrays.copyOf(TLBHits,capacity);
+			}
+			processLRU.ensureLists(processes);
+			pid[index] = processID;
+			processIndex.put(processID,index);
+		}
+		return index;
+	}
+
+	/*
+	 * This method picks the frame for a page fault of the given process, evicting a page if needed
+	 */
+	public int allocateFrame(int process){
+		if(!local){
+			if(freeCount>0){
+				return freeFrames[--freeCount];
+			}
+			if(frame<frames){
+				return frame++;
+			}
+			return evict(globalLRU.last(0));
+		}
+		int quota = Math.max(1,frames/processes);	//fair share of the frames
+		int owned = processLRU.size[process];
+		if(owned>=quota){
+			return evict(processLRU.last(process));	//replace one of its own pages
+		}
+		if(freeCount>0){
+			return freeFrames[--freeCount];
+		}
+		if(frame<frames){
+			return frame++;
+		}
+		return evict(globalLRU.last(0));	//below its share, so take the oldest frame of the machine
+	}
+
+	/*
+	 * This method removes the page held by the frame from every process mapping it and returns
+	 * the frame
+	 */
+	public int evict(int victimFrame){
+		int owner = frameProcess[victimFrame];
+		int object = frameObject[victimFrame];
+		for(int m=pages.objectHead[object];m!=-1;m=pages.mappingNext[m]){
+			tlb.invalidate(pages.mappingAsid[m],pages.mappingPage[m]);	//TLB shootdown
+		}
+		globalLRU.remove(0,victimFrame);
+		processLRU.remove(owner,victimFrame);
+		pages.objectFrame[object] = -1;
+		if(pages.objectRefs[object]==1){
+			pages.unmap(pages.objectHead[object]);	//the page is the swap area image's again
+			pages.freeObject(object);
+		}else{
+			sharedFrames -= pages.objectRefs[object]-1;	//kept mapped, so the sharers fault on the same object
+		}
+		return victimFrame;
+	}
+
+	/*
+	 * This method loads the page object into a frame for the process and returns the frame
+	 */
+	private int load(int process,int object){
+		int currentFrame = allocateFrame(process);
+		backingStore.readPage(pages.objectPage[object],physicalMem,(long)currentFrame*frameSize);
+		place(process,object,currentFrame);
+		return currentFrame;
+	}
+
+	/*
+	 * This method records that the frame now holds the object, charged to the process
+	 */
+	private void place(int process,int object,int currentFrame){
+		pages.objectFrame[object] = currentFrame;
+		pages.objectLoads[object]++;
+		frameProcess[currentFrame] = process;
+		frameObject[currentFrame] = object;
+		globalLRU.pushFront(0,currentFrame);
+		processLRU.pushFront(process,currentFrame);
+		sharedFrames += pages.objectRefs[object]-1;
+	}
+
+	/*
+	 * This method charges the frame to another process sharing it if the process was charged
+	 */
+	private void recharge(int process,int currentFrame){
+		if(frameProcess[currentFrame]==process){
+			int other = pages.mappingAsid[pages.objectHead[frameObject[currentFrame]]];
+			processLRU.remove(process,currentFrame);
+			processLRU.pushFront(other,currentFrame);
+			frameProcess[currentFrame] = other;
+		}
+	}
+
+	/*
+	 * This method gives the process its own copy of the shared page held by the frame and
+	 * returns the frame of the copy
+	 */
+	public int copyOnWrite(int process,int pageNumber,int sharedFrame){
+		pages.unmap(pages.lookup(process,pageNumber));
+		sharedFrames--;
+		recharge(process,sharedFrame);
+		physicalMem.store((long)sharedFrame*frameSize,copyBuffer);	//taken before the copy's frame may evict it
+		int copy = pages.newObject(pageNumber);
+		int mapping = pages.map(process,pageNumber,copy);
+		int currentFrame = allocateFrame(process);
+		physicalMem.load((long)currentFrame*frameSize,copyBuffer);
+		place(process,copy,currentFrame);
+		pages.mappingSeen[mapping] = pages.objectLoads[copy];
+		tlb.insert(process,pageNumber,currentFrame);
+		copies++;
+		return currentFrame;
+	}
+
+	/*
+	 * This method handles a process event: a fork if child is not -1, otherwise an exit
+	 */
+	public void event(int processID,int child){
+		int process = processOf(processID);
+		if(child==-1){
+			exits++;
+			release(process);
+			return;
+		}
+		forks++;
+		int childProcess = processOf(child);
+		release(childProcess);	//a fork replaces whatever the child held
+		for(int m:pages.mappingsOf(process)){
+			int object = pages.mappingObject[m];
+			pages.map(childProcess,pages.mappingPage[m],object);
+			if(pages.objectFrame[object]!=-1){
+				sharedFrames++;
+			}
+		}
+	}
+
+	/*
+	 * This method unmaps every page of the process and frees the frames no one else maps
+	 */
+	public void release(int process){
+		for(int m:pages.mappingsOf(process)){
+			int pageNumber = pages.mappingPage[m];
+			int object = pages.unmap(m);
+			tlb.invalidate(process,pageNumber);
+			int currentFrame = pages.objectFrame[object];
+			if(pages.objectRefs[object]>0){
+				if(currentFrame!=-1){
+					sharedFrames--;
+					recharge(process,currentFrame);
+				}
+				continue;
+			}
+			if(currentFrame!=-1){
+				globalLRU.remove(0,currentFrame);
+				processLRU.remove(process,currentFrame);
+				freeFrames[freeCount++] = currentFrame;
+			}
+			pages.freeObject(object);
+		}
+	}
+
+	/*
+	 * This method marks the frame as the most recently used one
+	 */
+	public void touch(int currentFrame){
+		globalLRU.moveToFront(0,currentFrame);
+		processLRU.moveToFront(frameProcess[currentFrame],currentFrame);
+	}
+
+	/*
+	 * This method translates one reference of the given process and returns the physical address
+	 */
+	public long translate(int processID,long number,boolean write){
+		int process = processOf(processID);
+		int pageNumber = (int)decoder.page(number);
+		int offsetNumber = decoder.offset(number);
+		int currentFrame;
+		references[process]++;
+		int TLBIndex = tlb.lookup(process,pageNumber);
+		if(TLBIndex!=-1){
+			/*TLB hits!*/
+			TLBHits[process]++;
+			currentFrame = tlb.frame[TLBIndex];
+			touch(currentFrame);
+		}else{
+			int mapping = pages.lookup(process,pageNumber);
+			int object = (mapping==-1)?-1:pages.mappingObject[mapping];
+			currentFrame = (object==-1)?-1:pages.objectFrame[object];
+			if(currentFrame==-1){
+				/*Handling page fault*/
+				pageFaults[process]++;
+				if(mapping==-1){
+					object = pages.newObject(pageNumber);
+					mapping = pages.map(process,pageNumber,object);
+				}
+				currentFrame = load(process,object);
+			}else{
+				touch(currentFrame);
+				if(pages.mappingSeen[mapping]!=pages.objectLoads[object]){
+					readsSaved++;	//loaded for another process since this one last used it
+				}
+			}
+			pages.mappingSeen[mapping] = pages.objectLoads[object];
+			tlb.insert(process,pageNumber,currentFrame);
+		}
+		if(write && pages.objectRefs[frameObject[currentFrame]]>1){
+			currentFrame = copyOnWrite(process,pageNumber,currentFrame);
+		}
+		sharedFramesSum += sharedFrames;
+		if(sharedFrames>peakSharedFrames){
+			peakSharedFrames = sharedFrames;
+		}
+		return (long)currentFrame*frameSize + offsetNumber;
+	}
+
+	/*
+	 * This method reads the tagged addresses from file and converts them to physical addresses
+	 * */
+	public void readAddressesFromFile(String fileName){
+		try {
+			backingStore = new BackingStore(BackingStore.FILE_NAME,frameSize,false);
+			TraceReader trace = TraceReader.openTagged(fileName);
+			while(trace.next()){
+				if(trace.isEvent()){
+					event(trace.pid(),trace.forkChild());
+					continue;
+				}
+				long number = trace.address();
+				long physicalAddress = translate(trace.pid(),number,trace.isWrite());
+				output.record(number,physicalAddress,physicalMem.read(physicalAddress),OutputSink.NO_DIRTY_BIT);
+			}
+			trace.close();
+			output.close();	//write the remaining output before the statistics
+			backingStore.close();
+			printStatistics();
+		}catch (IOException e) {
+			System.out.println("Error: specified file or line cannot be found");
+		}
+	}
+
+	public void printStatistics(){
+		long totalAddress = 0,pageFault = 0,TLBHit = 0;
+		for(int i=0;i<processes;i++){
+			if(references[i]==0){
+				continue;	//forked but never ran
+			}
+			System.out.println("Process "+pid[i]+": references: "+references[i]
+					+" page fault rate: "+(float)pageFaults[i]/references[i]*100+'%'
+					+" TLB hit rate: "+(float)TLBHits[i]/references[i]*100+'%');
+			totalAddress += references[i];
+			pageFault += pageFaults[i];
+			TLBHit += TLBHits[i];
+		}
+		System.out.println("Processes: "+processes);
+		System.out.println("Page fault rate: "+(float)pageFault/totalAddress*100+'%');
+		System.out.println("TLB hit rate: "+(float)TLBHit/totalAddress*100+'%');
+		if(forks>0){
+			System.out.println("Forks: "+forks+", exits: "+exits);
+			System.out.println("Copy-on-write copies: "+copies);
+			System.out.println("Frames saved by sharing: average "+(float)sharedFramesSum/totalAddress+", peak "+peakSharedFrames);
+			System.out.println("Swap area reads saved by sharing: "+readsSaved);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class Options {
+
+	/*
+	 * Command line arguments. An argument of the form -name=value is an option,
+	 * anything else is a positional argument such as the addresses file. The options asked
+	 * for are remembered, so a program can reject the ones nothing read, e.g. a misspelling.
+	 * */
+
+	public ArrayList<String> positional;	//Positional arguments in order
+	public HashMap<String,String> values;	//Option values by name
+	public HashSet<String> read;			//Names of the options asked for so far
+
+	public Options(String[] args){
+		this.positional = new ArrayList<String>();
+		this.values = new HashMap<String,String>();
+		this.read = new HashSet<String>();
+		for(String arg:args){
+			int equals = arg.indexOf('=');
+			if(arg.startsWith("-") && equals>1){
+				values.put(arg.substring(1,equals),arg.substring(equals+1));
+			}else if(arg.startsWith("-") && arg.length()>1 && !Character.isDigit(arg.charAt(1))){
+				values.put(arg.substring(1),"true");	//a flag without value
+			}else{
+				positional.add(arg);
+			}
+		}
+	}
+
+	/*
+	 * This method returns the number of positional arguments
+	 */
+	public int count(){
+		return positional.size();
+	}
+
+	/*
+	 * This method returns the positional argument at the given index, or def if there is none
+	 */
+	public String get(int index,String def){
+		return (index<positional.size())? positional.get(index) : def;
+	}
+
+	public String get(String name,String def){
+		read.add(name);
+		String value = values.get(name);
+		return (value==null)? def : value;
+	}
+
+	public int getInt(String name,int def){
+		read.add(name);
+		String value = values.get(name);
+		if(value==null){
+			return def;
+		}
+		try{
+			return Integer.parseInt(value);
+		}catch(NumberFormatException e){
+			throw new IllegalArgumentException("Option -"+name+" expects a number: "+value);
+		}
+	}
+
+	public double getDouble(String name,double def){
+		read.add(name);
+		String value = values.get(name);
+		if(value==null){
+			return def;
+		}
+		try{
+			return Double.parseDouble(value);
+		}catch(NumberFormatException e){
+			throw new IllegalArgumentException("Option -"+name+" expects a number: "+value);
+		}
+	}
+
+	public boolean has(String name){
+		read.add(name);
+		return values.containsKey(name);
+	}
+
+	/*
+	 * This method throws IllegalArgumentException if an option was given that nothing asked
+	 * for: an unknown name, or one that only applies with another option. later names the
+	 * options that will be read after the check
+	 */
+	public void checkUsed(String... later){
+		for(String name:later){
+			read.add(name);
+		}
+		for(String name:values.keySet()){
+			if(!read.contains(name)){
+				throw new IllegalArgumentException("Unknown or unused option: -"+name);
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class OutputSink {
+
+	/*
+	 * Receives one record per translated reference. This base class discards them, which is
+	 * the "none" output mode where only the statistics are printed. TextSink and BinarySink
+	 * encode the records into a reusable buffer written through a single channel.
+	 * */
+
+	public static final int NO_DIRTY_BIT = -1;	//dirty bit of programs that do not track writes
+
+	/*
+	 * This method records one translated reference
+	 */
+	public void record(long virtualAddress,long physicalAddress,int value,int dirtyBit) throws IOException{
+	}
+
+	/*
+	 * This method writes everything recorded so far. It must be called before the statistics are printed
+	 */
+	public void close() throws IOException{
+	}
+
+	/*
+	 * This method returns the sink for the given mode ("none", "text" or "binary"). Records go to
+	 * the given file, or to the console if fileName is null. If async is true the channel is
+	 * written by a separate thread
+	 */
+	public static OutputSink create(String mode,String fileName,boolean async,boolean dirtyBits) throws IOException{
+		if(mode.equals("none")){
+			return new OutputSink();
+		}
+		boolean console = (fileName==null);
+		WritableByteChannel channel;
+		if(console){
+			channel = new FileOutputStream(FileDescriptor.out).getChannel();
+		}else{
+			channel = FileChannel.open(Paths.get(fileName),StandardOpenOption.CREATE,StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		if(mode.equals("text")){
+			return new TextSink(channel,!console,async,dirtyBits);
+		}
+		if(mode.equals("binary")){
+			return new BinarySink(channel,!console,async);
+		}
+		throw new IllegalArgumentException("Unknown output mode: "+mode);
+	}
+
+	/*
+	 * This method returns the sink for the given mode printing to the console, which is the
+	 * default of a manager. Nothing is allocated for "none"
+	 */
+	public static OutputSink console(String mode,boolean dirtyBits){
+		if(mode.equals("none")){
+			return new OutputSink();
+		}
+		WritableByteChannel channel = new FileOutputStream(FileDescriptor.out).getChannel();
+		if(mode.equals("binary")){
+			return new BinarySink(channel,false,false);
+		}
+		return new TextSink(channel,false,false,dirtyBits);
+	}
+}
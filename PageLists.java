@@ -0,0 +1,103 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class PageLists {
+
+	/*
+	 * A set of doubly-linked lists threaded through int arrays indexed by page number.
+	 * A page is in at most one list at a time, so moving, removing and finding the list
+	 * of a page are all O(1) and nothing is allocated after construction.
+	 * The head of list l is the most recently used end, and its sentinel is node pages+l.
+	 * */
+
+	public int pages;		//Number of pages that can be linked
+	public int[] prev;		//prev[node] is the node closer to the head
+	public int[] next;		//next[node] is the node closer to the tail
+	public byte[] list;		//list[page] is the list holding the page, -1 if none
+	public int[] size;		//Number of pages in each list
+
+	public PageLists(int pages,int lists){
+		this.pages = pages;
+		this.prev = new int[pages+lists];
+		this.next = new int[pages+lists];
+		this.list = new byte[pages];
+		this.size = new int[lists];
+		for(int i=0;i<pages;i++){
+			list[i] = -1;
+		}
+		for(int l=0;l<lists;l++){
+			prev[pages+l] = pages+l;
+			next[pages+l] = pages+l;
+		}
+	}
+
+	/*
+	 * This method returns the list holding the page, or -1
+	 */
+	public int listOf(int page){
+		return list[page];
+	}
+
+	/*
+	 * This method links the page at the head of the list, unlinking it first if needed
+	 */
+	public void pushFront(int l,int page){
+		if(list[page]!=-1){
+			remove(page);
+		}
+		int head = pages+l;
+		int first = next[head];
+		prev[page] = head;
+		next[page] = first;
+		prev[first] = page;
+		next[head] = page;
+		list[page] = (byte)l;
+		size[l]++;
+	}
+
+	/*
+	 * This method unlinks the page from its list
+	 */
+	public void remove(int page){
+		int p = prev[page];
+		int n = next[page];
+		next[p] = n;
+		prev[n] = p;
+		size[list[page]]--;
+		list[page] = -1;
+	}
+
+	/*
+	 * This method returns the page at the tail of the list, or -1 if the list is empty
+	 */
+	public int last(int l){
+		int tail = prev[pages+l];
+		return (tail==pages+l)? -1 : tail;
+	}
+
+	/*
+	 * This method unlinks and returns the page at the tail of the list, or -1 if the list is empty
+	 */
+	public int removeLast(int l){
+		int tail = last(l);
+		if(tail!=-1){
+			remove(tail);
+		}
+		return tail;
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		Checkpoint.writeInts(out,prev);
+		Checkpoint.writeInts(out,next);
+		Checkpoint.writeBytes(out,list);
+		Checkpoint.writeInts(out,size);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		Checkpoint.readInts(in,prev);
+		Checkpoint.readInts(in,next);
+		Checkpoint.readBytes(in,list);
+		Checkpoint.readInts(in,size);
+	}
+}
@@ -0,0 +1,78 @@
+public interface PageTable {
+
+	/*
+	 * Maps the page numbers of one address space to frames. The managers call lookup() on a TLB
+	 * miss, map() when a page is loaded and unmap() when it is evicted. Every table counts the
+	 * entries it reads during lookups (the walk cost) and the bytes its entries take, so the
+	 * structures can be compared on the same trace.
+	 * */
+
+	/*
+	 * This method returns the frame of the page, or -1 if the page is not mapped
+	 */
+	int lookup(long page);
+
+	/*
+	 * This method maps the page to the frame
+	 */
+	void map(long page,int frame);
+
+	/*
+	 * This method removes the mapping of the page
+	 */
+	void unmap(long page);
+
+	/*
+	 * This method returns the number of bytes taken by the table entries
+	 */
+	long footprint();
+
+	/*
+	 * This method returns the number of lookups so far
+	 */
+	long walks();
+
+	/*
+	 * This method returns the number of table entries read by those lookups
+	 */
+	long entriesRead();
+
+	String name();
+
+	/*
+	 * This method throws IllegalArgumentException unless create() knows the name
+	 */
+	static void checkName(String name){
+		switch(name.toLowerCase()){
+		case "flat":
+		case "radix2":
+		case "radix3":
+		case "radix4":
+		case "inverted":
+			return;
+		default:
+			throw new IllegalArgumentException("Unknown page table: "+name);
+		}
+	}
+
+	/*
+	 * This method returns the page table with the given name ("flat", "radix2", "radix3",
+	 * "radix4" or "inverted") for page numbers of pageBits bits
+	 */
+	static PageTable create(String name,int pageBits,int frames){
+		switch(name.toLowerCase()){
+		case "flat":
+			return new FlatPageTable(pageBits);
+		case "radix2":
+			return new RadixPageTable(pageBits,2);
+		case "radix3":
+			return new RadixPageTable(pageBits,3);
+		case "radix4":
+			return new RadixPageTable(pageBits,4);
+		case "inverted":
+			return new InvertedPageTable(frames);
+		default:
+			throw new IllegalArgumentException("Unknown page table: "+name);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class PageWalker implements Checkpoint.State {
+
+	/*
+	 * Cost model of the page walks that handle TLB misses. A walk costs one memory access per
+	 * page table entry it reads: the entries the table read for the lookup of the page, or, on
+	 * a page fault, where the engine does not look the page up, one per level of a radix table
+	 * and one for the other tables. The entries read to find a victim's frame, to load the page
+	 * or to promote a huge page are the handler's work, not the walk's. A huge page ends the
+	 * walk one level early.
+	 *
+	 * For a radix table a page-walk cache (PWC) keeps, for each upper level, the entries read
+	 * recently there, as x86 processors do for PML4, PDPT and PD entries. Level l is looked up
+	 * with the bits of the page number down to level l, a walk starts below the deepest level
+	 * that hits and fills the levels it reads. Each level is a small fully associative LRU
+	 * cache, a TLB whose keys are page number prefixes. Nodes are never freed, so cached
+	 * entries never need invalidating.
+	 * */
+
+	public static int MEMORY_LATENCY = 100;	//Cycles of a memory access, unless given
+	public static int SECOND_LATENCY = 7;	//Cycles of a hit in a second-level TLB
+
+	public int latency;			//Cycles of a memory access
+	public int depth;			//Accesses of a walk that reads no entry, without the PWC
+	public int[] shift;			//shift[l] keeps the bits of the page number down to level l
+	public TLB[] pwc;			//Cache of each upper level, null without PWC
+
+	/*for statistics purpose*/
+	public long walks;
+	public long accesses;		//Memory accesses of all walks
+	public long pwcHits;		//Walks that started below the root
+	public long accessesSaved;	//Accesses skipped thanks to the PWC
+
+	public PageWalker(PageTable pageTable,int pages,int pwcSize,int latency){
+		this.latency = (latency>0)?latency:MEMORY_LATENCY;
+		if(pageTable instanceof RadixPageTable){
+			RadixPageTable radix = (RadixPageTable)pageTable;
+			this.depth = radix.levels;
+			this.shift = radix.shift;
+			if(pwcSize>0){
+				this.pwc = new TLB[radix.levels-1];
+				for(int l=0;l<pwc.length;l++){
+					pwc[l] = new TLB(pwcSize,pwcSize,pages>>>shift[l]);
+				}
+			}
+		}else{
+			if(pwcSize>0){
+				throw new IllegalArgumentException("A page-walk cache needs a radix page table");
+			}
+			this.depth = 1;
+		}
+	}
+
+	/*
+	 * This method records the walk of a TLB miss on the page. entriesRead is the number of
+	 * entries the page table read for it, 0 if it was not looked up
+	 */
+	public void walk(int page,long entriesRead,boolean huge){
+		long cost = (entriesRead>0)?entriesRead:depth;
+		if(pwc!=null){
+			int skip = 0;
+			for(int l=pwc.length-1;l>=0;l--){
+				if(pwc[l].lookup(page>>>shift[l])!=-1){
+					skip = l+1;		//the node below level l is known
+					break;
+				}
+			}
+			for(int l=skip;l<pwc.length;l++){
+				pwc[l].insert(page>>>shift[l],0);
+			}
+			if(skip>0){
+				pwcHits++;
+				accessesSaved += skip;
+				cost -= skip;
+			}
+		}
+		if(huge){
+			cost--;
+		}
+		walks++;
+		accesses += Math.max(1,cost);
+	}
+
+	/*
+	 * This method prints the cost of the TLB misses: misses is the number of L1 misses,
+	 * secondHits the number of them served by the second level, if any
+	 */
+	public void printStatistics(long misses,long secondHits,TLB second){
+		System.out.println("L1 TLB misses: "+misses);
+		if(second!=null){
+			System.out.println("L2 TLB: "+second.size+" entries, hit rate: "+(float)secondHits/Math.max(1,misses)*100+'%');
+		}
+		System.out.println("Page walks: "+walks+", memory accesses per walk: "+(float)accesses/Math.max(1,walks));
+		if(pwc!=null){
+			System.out.println("Page-walk cache: "+pwc[0].size+" entries per level, hit rate: "+(float)pwcHits/Math.max(1,walks)*100+"%, accesses saved: "+accessesSaved);
+		}
+		long walkCycles = accesses*latency;
+		System.out.println("Average walk latency: "+(float)walkCycles/Math.max(1,walks)+" cycles");
+		System.out.println("Average TLB miss latency: "+(float)(walkCycles+secondHits*SECOND_LATENCY)/Math.max(1,misses)+" cycles");
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		out.writeBoolean(pwc!=null);
+		if(pwc!=null){
+			for(TLB level:pwc){
+				level.save(out);
+			}
+		}
+		out.writeLong(walks);
+		out.writeLong(accesses);
+		out.writeLong(pwcHits);
+		out.writeLong(accessesSaved);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		if((in.get()!=0)!=(pwc!=null)){
+			throw new IOException("Checkpoint was taken with a different page-walk cache");
+		}
+		if(pwc!=null){
+			for(TLB level:pwc){
+				level.load(in);
+			}
+		}
+		walks = in.getLong();
+		accesses = in.getLong();
+		pwcHits = in.getLong();
+		accessesSaved = in.getLong();
+	}
+}
@@ -0,0 +1,62 @@
+import java.nio.ByteBuffer;
+
+public class PhysicalMemory {
+
+	/*
+	 * Physical memory holding one real byte per address in direct (off-heap) buffers, instead
+	 * of one int per byte on the heap. Pages move in and out with bulk copies of a whole frame,
+	 * and the garbage collector never scans or moves it, so large frame counts cost neither
+	 * heap nor pause time. Memory beyond 1GB is split into chunks; a frame never straddles
+	 * two chunks because the frame size is a power of two.
+	 * */
+
+	public static final int CHUNK_BITS = 30;	//Each chunk holds 1GB
+
+	public long size;			//Number of bytes
+	public ByteBuffer[] chunks;	//The memory, CHUNK_BITS of address per chunk
+	public int chunkMask;
+
+	public PhysicalMemory(long frames,int frameSize){
+		if(Integer.bitCount(frameSize)!=1 || frameSize>(1<<CHUNK_BITS)){
+			throw new IllegalArgumentException("Frame size must be a power of two up to 1GB");
+		}
+		this.size = frames*frameSize;
+		this.chunkMask = (1<<CHUNK_BITS)-1;
+		int count = (int)((size+chunkMask)>>>CHUNK_BITS);
+		this.chunks = new ByteBuffer[count];
+		for(int i=0;i<count;i++){
+			long remaining = size-((long)i<<CHUNK_BITS);
+			chunks[i] = ByteBuffer.allocateDirect((int)Math.min(remaining,1L<<CHUNK_BITS));
+		}
+	}
+
+	/*
+	 * This method returns the value at the address, sign extended like RandomAccessFile.readByte()
+	 */
+	public int read(long address){
+		return chunks[(int)(address>>>CHUNK_BITS)].get((int)address&chunkMask);
+	}
+
+	public void write(long address,int value){
+		chunks[(int)(address>>>CHUNK_BITS)].put((int)address&chunkMask,(byte)value);
+	}
+
+	/*
+	 * This method copies length bytes of the source, from the given offset, into memory at start.
+	 * Only absolute positions are used, so threads may load different frames at the same time
+	 */
+	public void load(long start,ByteBuffer source,int offset,int length){
+		chunks[(int)(start>>>CHUNK_BITS)].put((int)start&chunkMask,source,offset,length);
+	}
+
+	public void load(long start,byte[] source){
+		chunks[(int)(start>>>CHUNK_BITS)].put((int)start&chunkMask,source);
+	}
+
+	/*
+	 * This method copies memory from start into the whole target array
+	 */
+	public void store(long start,byte[] target){
+		chunks[(int)(start>>>CHUNK_BITS)].get((int)start&chunkMask,target);
+	}
+}
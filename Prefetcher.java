@@ -0,0 +1,165 @@
+public class Prefetcher {
+
+	/*
+	 * Predicts the pages about to be used from the stream of demand misses: page faults, and
+	 * first uses of pages that were prefetched (a fault the prefetch avoided). Two predictors
+	 * can be combined:
+	 *
+	 * - sequential read-ahead: two misses on adjacent pages start a stream and the next
+	 *   "window" pages are read ahead. The first page of each read-ahead region is its trigger:
+	 *   when it is used, the next region is read ahead with a doubled window, so a long scan
+	 *   stops faulting. Each wasted prefetch halves the window.
+	 * - stride: if the page minus d and minus 2d are both among the last HISTORY misses, the
+	 *   pages page+d ... page+STRIDE_DEPTH*d are predicted. Looking at the whole history
+	 *   rather than the last miss only finds strides of streams that are interleaved.
+	 * */
+
+	public static int MAX_WINDOW = 32;	//Largest read-ahead window
+	public static int HISTORY = 8;		//Number of recent misses searched for a stride
+	public static int STRIDE_DEPTH = 4;	//Pages predicted ahead along a stride
+
+	public boolean sequential;	//sequential read-ahead enabled
+	public boolean stride;		//stride detection enabled
+	public int pages;			//Number of pages in logical memory
+	public int maxWindow;		//Largest read-ahead window of this instance
+
+	public int window;			//Current read-ahead window
+	public int lastMiss;		//Page of the previous miss, -1 if none
+	public int trigger;			//Page whose use starts the next read-ahead, -1 if no stream
+	public int regionEnd;		//Last page of the current read-ahead region
+
+	public int[] history;		//Ring of the last misses
+	public int historyCount;
+	public int historyNext;
+
+	public int[] candidates;	//Predicted pages, filled by miss()
+
+	/*
+	 * This method throws IllegalArgumentException unless the mode is "none" or one the
+	 * constructor knows
+	 */
+	public static void checkMode(String mode){
+		switch(mode.toLowerCase()){
+		case "none":
+		case "sequential":
+		case "stride":
+		case "both":
+			return;
+		default:
+			throw new IllegalArgumentException("Unknown prefetch mode: "+mode);
+		}
+	}
+
+	public Prefetcher(String mode,int pages,int maxWindow){
+		switch(mode.toLowerCase()){
+		case "sequential":
+			sequential = true;
+			break;
+		case "stride":
+			stride = true;
+			break;
+		case "both":
+			sequential = true;
+			stride = true;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown prefetch mode: "+mode);
+		}
+		this.pages = pages;
+		this.maxWindow = Math.min(maxWindow,MAX_WINDOW);
+		this.window = 1;
+		this.lastMiss = -1;
+		this.trigger = -1;
+		this.history = new int[HISTORY];
+		this.candidates = new int[MAX_WINDOW+STRIDE_DEPTH];
+	}
+
+	/*
+	 * This method records a demand miss on the page, a fault or the first use of a prefetched
+	 * page, and returns the number of pages predicted in candidates
+	 */
+	public int miss(int page,boolean fault){
+		int count = 0;
+		if(sequential){
+			count = readAhead(page,fault);
+		}
+		if(stride){
+			count = strideAhead(page,count);
+		}
+		history[historyNext] = page;
+		historyNext = (historyNext+1)%HISTORY;
+		if(historyCount<HISTORY){
+			historyCount++;
+		}
+		lastMiss = page;
+		return count;
+	}
+
+	/*
+	 * This method is told that a prefetched page was evicted without being used
+	 */
+	public void wasted(){
+		window = Math.max(1,window/2);
+	}
+
+	private int readAhead(int page,boolean fault){
+		if(!fault && page==trigger){
+			/*the stream reached the current region, read the next one*/
+			window = Math.min(window*2,maxWindow);
+			int start = regionEnd+1;
+			trigger = start;
+			regionEnd += window;
+			return range(start,window,0);
+		}
+		if(fault && (page==lastMiss+1 || (trigger!=-1 && page==regionEnd+1))){
+			/*a new stream, or the read-ahead fell behind the stream*/
+			if(page==regionEnd+1){
+				window = Math.min(window*2,maxWindow);
+			}
+			trigger = page+1;
+			regionEnd = page+window;
+			return range(page+1,window,0);
+		}
+		return 0;
+	}
+
+	private int strideAhead(int page,int count){
+		for(int i=1;i<=historyCount;i++){
+			int previous = history[(historyNext-i+HISTORY)%HISTORY];
+			int d = page-previous;
+			if(d==0 || (sequential && d==1)){
+				continue;	//the same page, or a stream read-ahead already covers
+			}
+			if(inHistory(page-2*d)){
+				for(int k=1;k<=STRIDE_DEPTH;k++){
+					count = add(page+k*d,count);
+				}
+				return count;
+			}
+		}
+		return count;
+	}
+
+	private boolean inHistory(int page){
+		for(int i=0;i<historyCount;i++){
+			if(history[i]==page){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int range(int start,int length,int count){
+		for(int i=0;i<length;i++){
+			count = add(start+i,count);
+		}
+		return count;
+	}
+
+	private int add(int page,int count){
+		if(page>=0 && page<pages && count<candidates.length){
+			candidates[count++] = page;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,126 @@
+public class RadixPageTable implements PageTable {
+
+	/*
+	 * Multi-level (radix) page table, as walked by x86-64 hardware. The page number is split
+	 * into one index per level, the top level taking any extra bits. Only the root exists at
+	 * first; an inner node or a leaf is allocated the first time a page under it is mapped,
+	 * so a sparse address space costs memory only around the pages it uses. Nodes are kept
+	 * when their last page is unmapped, as most kernels do.
+	 *
+	 * Inner levels are arrays of child nodes, the last level is an int array holding
+	 * frame+1, so a freshly allocated leaf reads as "not mapped" without being filled.
+	 * */
+
+	public int levels;			//Number of levels, 2 to 4
+	public int[] shift;			//shift[l] moves the index of level l to the low bits
+	public int[] width;			//width[l] is the number of entries of a node of level l
+	public Object[] root;		//Top level node
+
+	public long nodes;			//Number of nodes allocated, the root included
+	public long footprint;		//Bytes of all allocated nodes
+	public long walks;
+	public long entriesRead;
+
+	public RadixPageTable(int pageBits,int levels){
+		if(levels<2 || levels>4 || pageBits<levels){
+			throw new IllegalArgumentException("A radix page table needs 2 to 4 levels and at least one page bit per level");
+		}
+		this.levels = levels;
+		this.shift = new int[levels];
+		this.width = new int[levels];
+		int bits = pageBits/levels;
+		int used = 0;
+		for(int l=levels-1;l>=0;l--){
+			int levelBits = (l==0)?pageBits-used:bits;	//the top level takes the remainder
+			shift[l] = used;
+			width[l] = 1<<levelBits;
+			used += levelBits;
+		}
+		this.root = newInner(0);
+	}
+
+	private int index(long page,int level){
+		return (int)(page>>>shift[level])&(width[level]-1);
+	}
+
+	public int lookup(long page){
+		walks++;
+		Object[] node = root;
+		for(int l=0;l<levels-2;l++){
+			entriesRead++;
+			node = (Object[])node[index(page,l)];
+			if(node==null){
+				return -1;
+			}
+		}
+		entriesRead++;
+		int[] leaf = (int[])node[index(page,levels-2)];
+		if(leaf==null){
+			return -1;
+		}
+		entriesRead++;
+		return leaf[index(page,levels-1)]-1;
+	}
+
+	public void map(long page,int frame){
+		leafOf(page,true)[index(page,levels-1)] = frame+1;
+	}
+
+	public void unmap(long page){
+		int[] leaf = leafOf(page,false);
+		if(leaf!=null){
+			leaf[index(page,levels-1)] = 0;
+		}
+	}
+
+	/*
+	 * This method returns the leaf covering the page, allocating the missing nodes on the way
+	 * if create is true. It returns null if a node is missing and create is false
+	 */
+	private int[] leafOf(long page,boolean create){
+		Object[] node = root;
+		for(int l=0;l<levels-2;l++){
+			int i = index(page,l);
+			if(node[i]==null){
+				if(!create){
+					return null;
+				}
+				node[i] = newInner(l+1);
+			}
+			node = (Object[])node[i];
+		}
+		int i = index(page,levels-2);
+		if(node[i]==null){
+			if(!create){
+				return null;
+			}
+			int[] leaf = new int[width[levels-1]];
+			nodes++;
+			footprint += (long)leaf.length*4;
+			node[i] = leaf;
+		}
+		return (int[])node[i];
+	}
+
+	private Object[] newInner(int level){
+		nodes++;
+		footprint += (long)width[level]*8;
+		return new Object[width[level]];
+	}
+
+	public long footprint(){
+		return footprint;
+	}
+
+	public long walks(){
+		return walks;
+	}
+
+	public long entriesRead(){
+		return entriesRead;
+	}
+
+	public String name(){
+		return "radix"+levels;
+	}
+}
@@ -0,0 +1,93 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface ReplacementPolicy {
+
+	/*
+	 * A page replacement policy decides which resident page is evicted when physical memory
+	 * is full. The managers call contains() on a TLB miss, access() on every reference to a
+	 * resident page, and on a page fault evict() (only when every frame is used) followed by insert().
+	 * A manager with an adaptive allocation (see ResidentSet) also calls evict() to shrink the
+	 * resident set, with no page coming in. A page loaded ahead of its use, by prefetching, is
+	 * inserted with insertCold() and activated at its first reference instead of accessed.
+	 * */
+
+	/*
+	 * This method returns true if the page is resident
+	 */
+	boolean contains(int page);
+
+	/*
+	 * This method records a reference to a resident page
+	 */
+	void access(int page);
+
+	/*
+	 * This method removes a resident page to make room for newPage and returns it. newPage is
+	 * -1 when the page is only evicted to shrink the resident set
+	 */
+	int evict(int newPage);
+
+	/*
+	 * This method records that the page has been loaded into a frame
+	 */
+	void insert(int page);
+
+	/*
+	 * This method records that the page has been loaded before it was referenced. It is
+	 * evicted before the pages in use if it stays unused for a while (see ColdPages)
+	 */
+	void insertCold(int page);
+
+	/*
+	 * This method records the first reference to a page inserted cold, which then has the
+	 * priority of a page loaded by a fault
+	 */
+	void activate(int page);
+
+	String name();
+
+	/*
+	 * This method writes the state of the policy to a checkpoint
+	 */
+	void save(DataOutputStream out) throws IOException;
+
+	/*
+	 * This method restores the state written by save()
+	 */
+	void load(ByteBuffer in) throws IOException;
+
+	/*
+	 * This method throws IllegalArgumentException unless create() knows the name
+	 */
+	static void checkName(String name){
+		switch(name.toLowerCase()){
+		case "lru":
+		case "clock":
+		case "2q":
+		case "arc":
+			return;
+		default:
+			throw new IllegalArgumentException("Unknown replacement policy: "+name);
+		}
+	}
+
+	/*
+	 * This method returns the policy with the given name ("lru", "clock", "2q" or "arc")
+	 */
+	static ReplacementPolicy create(String name,int pages,int frames){
+		switch(name.toLowerCase()){
+		case "lru":
+			return new LRUPolicy(pages,frames);
+		case "clock":
+			return new ClockPolicy(pages,frames);
+		case "2q":
+			return new TwoQPolicy(pages,frames);
+		case "arc":
+			return new ARCPolicy(pages,frames);
+		default:
+			throw new IllegalArgumentException("Unknown replacement policy: "+name);
+		}
+	}
+}
@@ -0,0 +1,244 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class ResidentSet implements Checkpoint.State {
+
+	/*
+	 * Adaptive frame allocation. Instead of holding every frame of the machine, a process is
+	 * allocated "limit" frames, between MIN_FRAMES and the frames of the machine, set from its
+	 * recent behaviour. The manager evicts down to the limit whenever it drops, so the frames
+	 * above it are free for other processes.
+	 *
+	 * - "ws": the limit is the size of the working set WS(tau), the distinct pages among the
+	 *   last tau references. A ring holds those references and lastUse[page] the time of the
+	 *   latest one, so a page leaves the working set when the reference leaving the ring is its
+	 *   latest: O(1) per reference, with no scan of the resident pages.
+	 * - "pff": page fault frequency. At each fault the references since the previous fault are
+	 *   compared with two thresholds: faults closer than pffLow grow the limit by one frame, and
+	 *   after more than pffHigh the limit shrinks to the pages used since the previous fault,
+	 *   counted as they are first used after it.
+	 * - "fixed": the limit stays at every frame; only the working set and thrashing are tracked.
+	 *
+	 * Thrashing: the ring also remembers which of the last tau references faulted. An episode
+	 * starts when more than THRASH_RATE of them did while the limit cannot grow any more (it is
+	 * at every frame), and ends when the rate falls below half of THRASH_RATE.
+	 * */
+
+	public static int TAU = 1000;			//Number of references of the working-set window
+	public static int PFF_LOW = 10;			//Fewer references between faults grow the allocation
+	public static int PFF_HIGH = 100;		//More references between faults shrink the allocation
+	public static int MIN_FRAMES = 4;		//Smallest allocation
+	public static float THRASH_RATE = 0.1f;	//Fault rate over the window that starts a thrashing episode
+
+	private static final int FAULT = 1<<31;	//Set in the ring for a reference that faulted
+	private static final int FIXED = 0;
+	private static final int WS = 1;
+	private static final int PFF = 2;
+
+	public String mode;				//"fixed", "ws" or "pff"
+	public int kind;				//FIXED, WS or PFF
+	public int frames;				//Frames of the machine, the largest allocation
+	public int tau;
+	public int pffLow;
+	public int pffHigh;
+	public int limit;				//Current allocation
+
+	public long time;				//Number of references seen
+	public int[] recent;			//Ring of the last tau references, with the FAULT bit
+	public long[] lastUse;			//lastUse[page] is the time of its latest reference, 0 if none
+	public int workingSet;			//Number of distinct pages in the window
+	public int recentFaults;		//Number of faults in the window
+	public long lastFault;			//Time of the previous fault, 0 if none
+	public int usedSinceFault;		//Distinct pages used since the previous fault
+
+	/*for statistics purpose*/
+	public long allocated;			//Sum of the limit over every reference
+	public int minLimit;
+	public int maxLimit;
+	public int maxWorkingSet;
+	public boolean thrashing;		//true during a thrashing episode
+	public long episodeStart;
+	public int episodes;
+	public long thrashingReferences;
+	public long longestEpisode;
+
+	public ResidentSet(String mode,int pages,int frames,int tau,int pffLow,int pffHigh){
+		if(!mode.equals("fixed") && !mode.equals("ws") && !mode.equals("pff")){
+			throw new IllegalArgumentException("Unknown allocation: "+mode);
+		}
+		if(tau<1){
+			throw new IllegalArgumentException("Working-set window must be at least 1");
+		}
+		if(pffLow<1 || pffHigh<pffLow){
+			throw new IllegalArgumentException("Page fault frequency thresholds must satisfy 1 <= low <= high");
+		}
+		this.mode = mode;
+		this.kind = mode.equals("ws")?WS:mode.equals("pff")?PFF:FIXED;
+		this.frames = frames;
+		this.tau = tau;
+		this.pffLow = pffLow;
+		this.pffHigh = pffHigh;
+		this.recent = new int[tau];
+		this.lastUse = new long[pages];
+		this.limit = (kind==PFF)?Math.min(MIN_FRAMES,frames):frames;
+		this.minLimit = limit;
+		this.maxLimit = limit;
+	}
+
+	/*
+	 * This method returns the allocation asked for on the command line with -allocation=fixed|ws|pff,
+	 * -tau=N and -pff=LOW,HIGH, or null if -allocation is not given
+	 */
+	public static ResidentSet create(Options options,int pages,int frames){
+		if(!options.has("allocation")){
+			return null;
+		}
+		int low = PFF_LOW,high = PFF_HIGH;
+		if(options.has("pff")){
+			String[] bounds = options.get("pff",null).split(",");
+			try{
+				low = Integer.parseInt(bounds[0]);
+				high = Integer.parseInt(bounds[bounds.length-1]);
+			}catch(NumberFormatException e){
+				throw new IllegalArgumentException("Option -pff expects LOW,HIGH: "+options.get("pff",null));
+			}
+		}
+		return new ResidentSet(options.get("allocation","fixed"),pages,frames,options.getInt("tau",TAU),low,high);
+	}
+
+	/*
+	 * This method records a reference to the page, and whether it faulted, and updates the
+	 * limit. On a fault it is called before the page is loaded, so the new limit applies to it
+	 */
+	public void reference(int page,boolean fault){
+		long now = ++time;
+		int slot = (int)(now%tau);
+		if(now>tau){
+			int leaving = recent[slot];
+			if(lastUse[leaving&~FAULT]==now-tau){
+				workingSet--;	//its latest reference leaves the window
+			}
+			if(leaving<0){
+				recentFaults--;
+			}
+		}
+		if(lastUse[page]==0 || lastUse[page]<=now-tau){
+			workingSet++;
+		}
+		if(lastUse[page]<lastFault || lastUse[page]==0){
+			usedSinceFault++;	//first use since the previous fault
+		}
+		lastUse[page] = now;
+		recent[slot] = fault?(page|FAULT):page;
+		if(fault){
+			recentFaults++;
+		}
+		maxWorkingSet = Math.max(maxWorkingSet,workingSet);
+
+		if(kind==WS){
+			limit = Math.max(Math.min(MIN_FRAMES,frames),Math.min(workingSet,frames));
+		}else if(fault && kind==PFF){
+			long interval = now-lastFault;
+			if(interval<pffLow){
+				limit = Math.min(frames,limit+1);
+			}else if(interval>pffHigh){
+				limit = Math.max(Math.min(MIN_FRAMES,frames),Math.min(usedSinceFault,frames));
+			}
+		}
+		if(fault){
+			lastFault = now;
+			usedSinceFault = 1;
+		}
+
+		allocated += limit;
+		minLimit = Math.min(minLimit,limit);
+		maxLimit = Math.max(maxLimit,limit);
+		trackThrashing(now);
+	}
+
+	private void trackThrashing(long now){
+		if(now<tau){
+			return;		//the window is not full yet
+		}
+		float rate = (float)recentFaults/tau;
+		if(!thrashing && rate>THRASH_RATE && limit>=frames){
+			thrashing = true;
+			episodeStart = now;
+			episodes++;
+		}else if(thrashing && rate<THRASH_RATE/2){
+			endEpisode(now);
+		}
+	}
+
+	private void endEpisode(long now){
+		thrashing = false;
+		thrashingReferences += now-episodeStart;
+		longestEpisode = Math.max(longestEpisode,now-episodeStart);
+	}
+
+	public void printStatistics(){
+		if(thrashing){
+			endEpisode(time);	//the trace ended during an episode
+		}
+		System.out.println("Allocation: "+mode+", tau "+tau);
+		System.out.println("Average frames allocated: "+(float)allocated/time);
+		System.out.println("Frames allocated: min "+minLimit+", max "+maxLimit);
+		System.out.println("Largest working set: "+maxWorkingSet);
+		System.out.println("Thrashing episodes: "+episodes);
+		System.out.println("References while thrashing: "+(float)thrashingReferences/time*100+'%');
+		System.out.println("Longest thrashing episode: "+longestEpisode+" references");
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		out.writeInt(kind);
+		out.writeInt(limit);
+		out.writeLong(time);
+		Checkpoint.writeInts(out,recent);
+		out.writeInt(lastUse.length);
+		for(long t:lastUse){
+			out.writeLong(t);
+		}
+		out.writeInt(workingSet);
+		out.writeInt(recentFaults);
+		out.writeLong(lastFault);
+		out.writeInt(usedSinceFault);
+		out.writeLong(allocated);
+		out.writeInt(minLimit);
+		out.writeInt(maxLimit);
+		out.writeInt(maxWorkingSet);
+		out.writeBoolean(thrashing);
+		out.writeLong(episodeStart);
+		out.writeInt(episodes);
+		out.writeLong(thrashingReferences);
+		out.writeLong(longestEpisode);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		if(in.getInt()!=kind){
+			throw new IOException("Checkpoint was taken with a different allocation");
+		}
+		limit = in.getInt();
+		time = in.getLong();
+		Checkpoint.readInts(in,recent);
+		if(in.getInt()!=lastUse.length){
+			throw new IOException("Checkpoint does not match the size of the simulation");
+		}
+		for(int i=0;i<lastUse.length;i++){
+			lastUse[i] = in.getLong();
+		}
+		workingSet = in.getInt();
+		recentFaults = in.getInt();
+		lastFault = in.getLong();
+		usedSinceFault = in.getInt();
+		allocated = in.getLong();
+		minLimit = in.getInt();
+		maxLimit = in.getInt();
+		maxWorkingSet = in.getInt();
+		thrashing = in.get()!=0;
+		episodeStart = in.getLong();
+		episodes = in.getInt();
+		thrashingReferences = in.getLong();
+		longestEpisode = in.getLong();
+	}
+}
@@ -0,0 +1,329 @@
+import java.io.IOException;
+
+public class SampledSimulation {
+
+	/*
+	 * Approximate simulation of huge traces by spatially hashed page sampling (SHARDS). A page
+	 * is sampled when hash(page) mod MODULUS is below rate x MODULUS, so every reference to a
+	 * sampled page is kept and the others are skipped after one hash. The sampled pages see
+	 * a miniature machine: the replacement policy runs with frames x R frames, where R is the
+	 * fraction of the address space the sample holds, and a fully associative LRU TLB of
+	 * tlbSize x R entries, but at least one, is evaluated from the stack distances of the
+	 * sampled references (see StackDistance). Since the sample keeps whole pages, the fault rate
+	 * and TLB hit rate of the miniature are estimates of those of the full machine. A miniature
+	 * only sees its own pages, renumbered in order of first use, so its policy and stack are
+	 * sized by the pages the sample holds, not the address space.
+	 *
+	 * Several samples are simulated in the same pass: sample k takes the pages whose hash lies
+	 * in [k x threshold, (k+1) x threshold), so the samples are disjoint, one hash still serves
+	 * them all, and rate x samples of the references are simulated. A rate is estimated as the
+	 * ratio of the events to the references over all samples, and the spread of the samples
+	 * around it gives a 95% confidence interval (ratio estimator, Student's t). With -validate
+	 * the full simulation runs alongside on the same references, as Modification would, and
+	 * the errors are printed next to the bounds.
+	 *
+	 * The TLB estimate assumes a fully associative TLB, the default, not larger than memory, so
+	 * -ways other than the TLB size is rejected. Process events of a trace are skipped.
+	 *
+	 * The stack distances also give the LRU fault rate of every memory size at once, so the
+	 * statistics end with the LRU miss-ratio curve: for each power of two of frames, the
+	 * faults of each sample's stack with frames x R frames, with bounds as above. It starts
+	 * where every miniature has a whole frame, below which the estimate is biased. This holds
+	 * whatever policy is simulated. CLOCK, 2Q and ARC have no inclusion property, so their
+	 * miniatures give only the single point of the configured -frames.
+	 *
+	 * Usage: java SampledSimulation addresses.txt [lru|clock|2q|arc] [-rate=0.1] [-samples=4]
+	 *        [-frames=128] [-tlb=16] [-validate]
+	 * */
+
+	public static final int MODULUS = 1<<24;	//Hash values are taken modulo MODULUS
+	public static double RATE = 0.1;			//Default sampling rate of each sample
+	public static int SAMPLES = 4;				//Default number of samples
+
+	/*Student's t for a 95% interval, by degrees of freedom from 1 to 30*/
+	private static final double[] T95 = {12.706,4.303,3.182,2.776,2.571,2.447,2.365,2.306,2.262,2.228,
+			2.201,2.179,2.160,2.145,2.131,2.120,2.110,2.101,2.093,2.086,
+			2.080,2.074,2.069,2.064,2.060,2.056,2.052,2.048,2.045,2.042};
+
+	public SimulatorConfig config;
+	public double rate;
+	public int threshold;			//Hash values of each sample, sample k holds [k x threshold, (k+1) x threshold)
+	public int samples;
+	public double[] fraction;		//fraction[k] is the share of the address space sample k holds
+	public int[] frames;			//Frames of the miniature of each sample
+	public ReplacementPolicy[] policies;
+	public int[] used;				//Frames filled in each miniature
+	public StackDistance[] distances;
+	public LongIntHashMap ids;		//Page number of each sampled page seen so far to its number in its sample
+	public int[] seen;				//seen[k] is the number of pages of sample k seen so far
+
+	/*for statistics purpose*/
+	public long totalAddress;
+	public long[] references;		//References kept by each sample
+	public long[] faults;			//Page faults of each miniature
+	public long simulated;			//References kept by some sample
+
+	public SampledSimulation(SimulatorConfig config,double rate,int samples){
+		if(rate<=0 || rate>1){
+			throw new IllegalArgumentException("Sampling rate must be in (0, 1]");
+		}
+		if(samples<2){
+			throw new IllegalArgumentException("At least 2 samples are needed for error bounds");
+		}
+		if(rate*samples>1){
+			throw new IllegalArgumentException("Sampling rate times samples cannot exceed 1");
+		}
+		if(config.tlbWays!=0 && config.tlbWays!=config.tlbSize){
+			throw new IllegalArgumentException("The TLB estimate needs a fully associative TLB, -ways must be the TLB size");
+		}
+		this.config = config;
+		this.rate = rate;
+		this.threshold = Math.max(1,(int)Math.round(rate*MODULUS));
+		this.samples = samples;
+		this.fraction = new double[samples];
+		this.frames = new int[samples];
+		this.policies = new ReplacementPolicy[samples];
+		this.used = new int[samples];
+		this.distances = new StackDistance[samples];
+		this.references = new long[samples];
+		this.faults = new long[samples];
+		this.seen = new int[samples];
+		int[] kept = new int[samples];
+		int sampled = 0;
+		for(int p=0;p<config.pages;p++){
+			int k = sampleOf(p);
+			if(k!=-1){
+				kept[k]++;
+				sampled++;
+			}
+		}
+		this.ids = new LongIntHashMap(sampled);
+		for(int k=0;k<samples;k++){
+			fraction[k] = (double)kept[k]/config.pages;
+			frames[k] = Math.max(1,(int)Math.round(config.frames*fraction[k]));
+			policies[k] = ReplacementPolicy.create(config.policy,Math.max(1,kept[k]),frames[k]);
+			distances[k] = new StackDistance(Math.max(1,kept[k]));
+		}
+	}
+
+	/*
+	 * This method returns the sample holding the page, -1 if it is not sampled
+	 */
+	public int sampleOf(int page){
+		long h = page;
+		h ^= h>>>33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h>>>33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h>>>33;
+		int k = (int)(h&(MODULUS-1))/threshold;
+		return (k<samples)?k:-1;
+	}
+
+	/*
+	 * This method records one reference to the page in the sample holding it, if any
+	 */
+	public void access(int page){
+		totalAddress++;
+		int k = sampleOf(page);
+		if(k==-1){
+			return;
+		}
+		simulated++;
+		references[k]++;
+		int id = ids.get(page);
+		if(id==-1){
+			id = seen[k]++;		//first use of the page
+			ids.put(page,id);
+		}
+		page = id;
+		distances[k].access(page);
+		ReplacementPolicy policy = policies[k];
+		if(policy.contains(page)){
+			policy.access(page);
+			return;
+		}
+		faults[k]++;
+		if(used[k]>=frames[k]){
+			policy.evict(page);
+		}else{
+			used[k]++;
+		}
+		policy.insert(page);
+	}
+
+	/*
+	 * This method returns the TLB hits of sample k: those of a TLB of tlbSize x R entries,
+	 * interpolated between the two whole sizes around it. Even a TLB scaled below one entry
+	 * hits a page used again right away, so the size is at least one
+	 */
+	public double TLBHits(int k){
+		double size = Math.max(1,config.tlbSize*fraction[k]);
+		int whole = (int)size;
+		long below = distances[k].TLBHits(whole);
+		long above = distances[k].TLBHits(whole+1);
+		return below+(size-whole)*(above-below);
+	}
+
+	/*
+	 * This method returns the LRU page faults of sample k with frames x R frames, interpolated
+	 * between the two whole sizes around it, as TLBHits() does
+	 */
+	public double LRUFaults(int k,int frames){
+		double size = Math.max(1,frames*fraction[k]);
+		int whole = (int)size;
+		long below = distances[k].pageFaults(whole);
+		long above = distances[k].pageFaults(whole+1);
+		return below+(size-whole)*(above-below);
+	}
+
+	/*
+	 * This method returns, in percent, the ratio of the events to the references of all
+	 * samples and the half width of its 95% confidence interval. A sample with fewer
+	 * references weighs less, and one with none adds only to the spread
+	 */
+	public double[] interval(double[] events){
+		int n = samples;
+		double sumEvents = 0,sumReferences = 0;
+		for(int k=0;k<n;k++){
+			sumEvents += events[k];
+			sumReferences += references[k];
+		}
+		double ratio = sumEvents/Math.max(1,sumReferences);
+		double spread = 0;
+		for(int k=0;k<n;k++){
+			double residual = events[k]-ratio*references[k];
+			spread += residual*residual;
+		}
+		double mean = Math.max(1,sumReferences)/n;	//references per sample
+		double variance = spread/(n-1)/(n*mean*mean);
+		double t = (n-1<=T95.length)?T95[n-2]:1.96;
+		return new double[]{ratio*100,t*Math.sqrt(variance)*100};
+	}
+
+	public double[] faultRate(){
+		double[] events = new double[samples];
+		for(int k=0;k<samples;k++){
+			events[k] = faults[k];
+		}
+		return interval(events);
+	}
+
+	/*
+	 * This method returns the LRU fault rate with the given number of frames and its bound
+	 */
+	public double[] LRUFaultRate(int frames){
+		double[] events = new double[samples];
+		for(int k=0;k<samples;k++){
+			events[k] = LRUFaults(k,frames);
+		}
+		return interval(events);
+	}
+
+	public double[] TLBHitRate(){
+		double[] events = new double[samples];
+		for(int k=0;k<samples;k++){
+			events[k] = TLBHits(k);
+		}
+		return interval(events);
+	}
+
+	public void printStatistics(){
+		double pages = 0,miniFrames = 0;
+		for(int k=0;k<samples;k++){
+			pages += fraction[k]*config.pages;
+			miniFrames += frames[k];
+		}
+		System.out.println("Sampling rate: "+(float)rate+", "+samples+" samples of "+(float)(pages/samples)+" pages and "+(float)(miniFrames/samples)+" frames on average");
+		System.out.println("References simulated: "+simulated+" of "+totalAddress+" ("+(float)simulated/Math.max(1,totalAddress)*100+"%)");
+		double[] fault = faultRate();
+		double[] hit = TLBHitRate();
+		System.out.println("Page fault rate: "+(float)fault[0]+"% (+/- "+(float)fault[1]+"%)");
+		System.out.println("TLB hit rate: "+(float)hit[0]+"% (+/- "+(float)hit[1]+"%)");
+		System.out.println("Page faults: "+Math.round(fault[0]/100*totalAddress)+" (+/- "+Math.round(fault[1]/100*totalAddress)+")");
+		System.out.println("TLB misses: "+Math.round((100-hit[0])/100*totalAddress)+" (+/- "+Math.round(hit[1]/100*totalAddress)+")");
+		printCurve();
+	}
+
+	/*
+	 * This method prints the LRU miss-ratio curve for every power of two of frames up to the
+	 * number of pages, from the first that gives every sample at least one frame
+	 */
+	public void printCurve(){
+		double smallest = 1;
+		for(int k=0;k<samples;k++){
+			if(fraction[k]>0){
+				smallest = Math.min(smallest,fraction[k]);
+			}
+		}
+		int first = 1;
+		while(first*smallest<1 && first<config.pages){
+			first *= 2;
+		}
+		System.out.println("LRU miss-ratio curve"+(config.policy.equalsIgnoreCase("lru")?"":" (the "+config.policy+" policy above gives only -frames="+config.frames+")")+":");
+		System.out.println(String.format("%8s %16s %12s","Frames","Page fault rate","+/-"));
+		for(int f=first;f<=config.pages;f*=2){
+			double[] fault = LRUFaultRate(f);
+			System.out.println(String.format("%8d %15.4f%% %11.4f%%",f,fault[0],fault[1]));
+		}
+	}
+
+	/*
+	 * This method prints the exact rates of the full run and the error of the estimates
+	 */
+	public void printValidation(Engine full){
+		double exactFault = (double)full.pageFault/full.totalAddress*100;
+		double exactHit = (double)full.TLBHit/full.totalAddress*100;
+		double[] fault = faultRate();
+		double[] hit = TLBHitRate();
+		double faultError = fault[0]-exactFault;
+		double hitError = hit[0]-exactHit;
+		System.out.println("Full page fault rate: "+(float)exactFault+"%, error: "+(float)faultError+"%"+(Math.abs(faultError)<=fault[1]?" (within bounds)":" (outside bounds)"));
+		System.out.println("Full TLB hit rate: "+(float)exactHit+"%, error: "+(float)hitError+"%"+(Math.abs(hitError)<=hit[1]?" (within bounds)":" (outside bounds)"));
+	}
+
+	/*
+	 * Our program starts here
+	 */
+	public static void main(String[] args){
+		Options options = new Options(args);
+		if(options.count()!=1 && options.count()!=2){
+			System.out.println("Please specify a file name");
+			System.out.println("Usage: java SampledSimulation addresses.txt [lru|clock|2q|arc] [-rate=0.1] [-samples=4] [-frames=128] [-tlb=16] [-validate]");
+			return;
+		}
+		try{
+			SimulatorConfig config = Modification.PRESET.with(options);
+			SampledSimulation simulation = new SampledSimulation(config,options.getDouble("rate",RATE),options.getInt("samples",SAMPLES));
+			boolean validate = options.has("validate");
+			options.checkUsed();
+			AddressDecoder decoder = AddressDecoder.forSizes(config.pages,config.frameSize);
+			Engine full = null;
+			if(validate){
+				full = new Engine(config.toBuilder().output("none").build());
+				full.backingStore = new BackingStore(config.backingStore,config.frameSize,false);
+			}
+			TraceReader trace = TraceReader.open(options.get(0,null));	//text or binary trace
+			while(trace.next()){
+				if(trace.isEvent()){
+					continue;	//only references are simulated
+				}
+				long number = trace.address();
+				simulation.access((int)decoder.page(number));
+				if(full!=null){
+					full.translate(number,false);
+				}
+			}
+			trace.close();
+			simulation.printStatistics();
+			if(full!=null){
+				full.backingStore.close();
+				simulation.printValidation(full);
+			}
+		}catch(IllegalArgumentException e){
+			System.out.println("Error: "+e.getMessage());
+		}catch(IOException e){
+			System.out.println("Error: specified file or line cannot be found");
+		}
+	}
+}
@@ -0,0 +1,181 @@
+import java.util.Arrays;
+
+public class SharedPages {
+
+	/*
+	 * The mappings of every address space to page objects. An object is the contents of a
+	 * page, loaded into at most one frame; several address spaces map the same object after a
+	 * fork, until one of them writes it and gets a private copy. Each object counts its
+	 * mappings and links them in a list, so evicting a shared frame reaches every mapping
+	 * without searching.
+	 *
+	 * Mappings and objects are indices into primitive arrays, recycled through free stacks,
+	 * and a mapping is found from (ASID, page) with a LongIntHashMap. The mappings of each
+	 * address space are also linked in a list of their own, so a fork or an exit visits only
+	 * the mappings of its process.
+	 * */
+
+	public LongIntHashMap index;	//(ASID, page) to mapping
+
+	/*Mappings*/
+	public int[] mappingAsid;
+	public int[] mappingPage;
+	public int[] mappingObject;
+	public int[] mappingNext;		//next mapping of the same object, -1 at the end
+	public int[] mappingPrev;		//previous mapping of the same object, -1 at the head
+	public int[] mappingSeen;		//load of the object this mapping last used
+	public int[] freeMappings;
+	public int freeMappingCount;
+	public int mappings;			//Mapping slots ever used
+	public FrameLists spaces;		//List l links the mappings of ASID l
+
+	/*Objects*/
+	public int[] objectFrame;		//frame holding the object, -1 if not resident
+	public int[] objectPage;		//page of the swap area image it is read from
+	public int[] objectRefs;		//number of mappings
+	public int[] objectHead;		//first mapping, -1 if none
+	public int[] objectLoads;		//number of times it was loaded into a frame
+	public int[] freeObjects;
+	public int freeObjectCount;
+	public int objects;				//Object slots ever used
+
+	public SharedPages(int expected){
+		this.index = new LongIntHashMap(expected);
+		this.mappingAsid = new int[expected];
+		this.mappingPage = new int[expected];
+		this.mappingObject = new int[expected];
+		this.mappingNext = new int[expected];
+		this.mappingPrev = new int[expected];
+		this.mappingSeen = new int[expected];
+		this.freeMappings = new int[expected];
+		this.spaces = new FrameLists(expected,1);
+		this.objectFrame = new int[expected];
+		this.objectPage = new int[expected];
+		this.objectRefs = new int[expected];
+		this.objectHead = new int[expected];
+		this.objectLoads = new int[expected];
+		this.freeObjects = new int[expected];
+	}
+
+	public static long key(int asid,int page){
+		return ((long)asid<<32)|(page&0xFFFFFFFFL);
+	}
+
+	/*
+	 * This method returns the mapping of the page of the address space, -1 if there is none
+	 */
+	public int lookup(int asid,int page){
+		return index.get(key(asid,page));
+	}
+
+	/*
+	 * This method returns a new object holding the page of the swap area image, not resident
+	 */
+	public int newObject(int page){
+		int object;
+		if(freeObjectCount>0){
+			object = freeObjects[--freeObjectCount];
+		}else{
+			if(objects==objectFrame.length){
+				int capacity = objects*2;
+				objectFrame = Arrays.copyOf(objectFrame,capacity);
+				objectPage = Arrays.copyOf(objectPage,capacity);
+				objectRefs = Arrays.copyOf(objectRefs,capacity);
+				objectHead = Arrays.copyOf(objectHead,capacity);
+				objectLoads = Arrays.copyOf(objectLoads,capacity);
+				freeObjects = Arrays.copyOf(freeObjects,capacity);
+			}
+			object = objects++;
+		}
+		objectFrame[object] = -1;
+		objectPage[object] = page;
+		objectRefs[object] = 0;
+		objectHead[object] = -1;
+		objectLoads[object] = 0;
+		return object;
+	}
+
+	/*
+	 * This method releases an object that has no mapping left
+	 */
+	public void freeObject(int object){
+		freeObjects[freeObjectCount++] = object;
+	}
+
+	/*
+	 * This method maps the page of the address space to the object and returns the mapping
+	 */
+	public int map(int asid,int page,int object){
+		int mapping;
+		if(freeMappingCount>0){
+			mapping = freeMappings[--freeMappingCount];
+		}else{
+			if(mappings==mappingAsid.length){
+				int capacity = mappings*2;
+				mappingAsid = Arrays.copyOf(mappingAsid,capacity);
+				mappingPage = Arrays.copyOf(mappingPage,capacity);
+				mappingObject = Arrays.copyOf(mappingObject,capacity);
+				mappingNext = Arrays.copyOf(mappingNext,capacity);
+				mappingPrev = Arrays.copyOf(mappingPrev,capacity);
+				mappingSeen = Arrays.copyOf(mappingSeen,capacity);
+				freeMappings = Arrays.copyOf(freeMappings,capacity);
+				spaces.ensureFrames(capacity);
+			}
+			mapping = mappings++;
+		}
+		mappingAsid[mapping] = asid;
+		mappingPage[mapping] = page;
+		mappingObject[mapping] = object;
+		mappingSeen[mapping] = -1;
+		int head = objectHead[object];
+		mappingPrev[mapping] = -1;
+		mappingNext[mapping] = head;
+		if(head!=-1){
+			mappingPrev[head] = mapping;
+		}
+		objectHead[object] = mapping;
+		objectRefs[object]++;
+		spaces.ensureLists(asid+1);
+		spaces.pushFront(asid,mapping);
+		index.put(key(asid,page),mapping);
+		return mapping;
+	}
+
+	/*
+	 * This method removes the mapping and returns its object, which has one reference less
+	 */
+	public int unmap(int mapping){
+		int object = mappingObject[mapping];
+		int prev = mappingPrev[mapping];
+		int next = mappingNext[mapping];
+		if(prev!=-1){
+			mappingNext[prev] = next;
+		}else{
+			objectHead[object] = next;
+		}
+		if(next!=-1){
+			mappingPrev[next] = prev;
+		}
+		objectRefs[object]--;
+		spaces.remove(mappingAsid[mapping],mapping);
+		index.remove(key(mappingAsid[mapping],mappingPage[mapping]));
+		freeMappings[freeMappingCount++] = mapping;
+		return object;
+	}
+
+	/*
+	 * This method returns every mapping of the address space, walking its list, as an array
+	 * the caller can map and unmap from
+	 */
+	public int[] mappingsOf(int asid){
+		if(asid>=spaces.head.length){
+			return new int[0];
+		}
+		int[] found = new int[spaces.size[asid]];
+		int n = 0;
+		for(int m=spaces.head[asid];m!=-1;m=spaces.next[m]){
+			found[n++] = m;
+		}
+		return found;
+	}
+}
@@ -0,0 +1,177 @@
+public final class SimulatorConfig {
+
+	/*
+	 * The configuration of an Engine: the sizes of the simulated machine and the components it
+	 * is built from. It cannot change once built, so an engine copies it into final fields and
+	 * instances with different configurations can run side by side. Presets are derived with
+	 * toBuilder(), e.g. Modification.PRESET.toBuilder().frames(64).build(). build() rejects
+	 * unknown component names and bad memory and TLB sizes, so a configuration is checked
+	 * without building an engine.
+	 * */
+
+	/*Options of the programs built on an Engine: those of with(), then those Engine.main attaches*/
+	public static final String USAGE = "addresses.txt [lru|clock|2q|arc] [-frames=128] [-tlb=16] [-ways=16]"
+			+" [-pagetable=flat|radix2|radix3|radix4|inverted] [-prefetch=none|sequential|stride|both]"
+			+" [-huge=16] [-hugetlb=16] [-promote=16] [-zswap=bytes] [-l2tlb=256] [-pwc=16] [-walk=100]"
+			+" [-output=text|binary|none] [-out=file] [-async]"
+			+" [-allocation=fixed|ws|pff] [-tau=1000] [-pff=10,100]"
+			+" [-checkpoint=prefix] [-every=1000000] [-resume]"
+			+" [-metrics=prefix] [-interval=1000] [-jmx] [-window=10000]";
+
+	public final int frameSize;		//Size of each frame and page
+	public final int frames;		//Number of frames in physical memory
+	public final int pages;			//Number of pages in logical memory
+	public final int tlbSize;		//Size of TLB table
+	public final int tlbWays;		//Entries per TLB set, 0 means fully associative
+	public final String policy;		//Replacement policy: lru, clock, 2q or arc
+	public final String pageTable;	//Page table structure: flat, radix2, radix3, radix4 or inverted
+	public final String prefetch;	//Prefetching: none, sequential, stride or both
+	public final int prefetchShare;	//A read-ahead window is at most 1/prefetchShare of the frames
+	public final boolean dirtyBits;	//true to track writes and write dirty pages back to the swap area
+	public final String backingStore;	//Swap area image
+	public final int hugePages;		//Base pages per huge page, 0 for base pages only
+	public final int hugeTLBSize;	//Entries of the huge-page TLB, 0 to share the base-page TLB
+	public final int promoteAt;		//Resident base pages of a region that start its promotion, 0 for all of them
+	public final int compressedPool;	//Bytes of the compressed swap tier, 0 for none
+	public final int l2TLBSize;		//Entries of the second-level TLB, 0 for none
+	public final int pwcSize;		//Entries per level of the page-walk cache, 0 for none
+	public final int walkLatency;	//Cycles of a memory access of a page walk, 0 for no walk model
+	public final String output;		//Translated addresses printed to the console: text, binary or none
+
+	private SimulatorConfig(Builder b){
+		this.frameSize = b.frameSize;
+		this.frames = b.frames;
+		this.pages = b.pages;
+		this.tlbSize = b.tlbSize;
+		this.tlbWays = b.tlbWays;
+		this.policy = b.policy;
+		this.pageTable = b.pageTable;
+		this.prefetch = b.prefetch;
+		this.prefetchShare = b.prefetchShare;
+		this.dirtyBits = b.dirtyBits;
+		this.backingStore = b.backingStore;
+		this.hugePages = b.hugePages;
+		this.hugeTLBSize = b.hugeTLBSize;
+		this.promoteAt = b.promoteAt;
+		this.compressedPool = b.compressedPool;
+		this.l2TLBSize = b.l2TLBSize;
+		this.pwcSize = b.pwcSize;
+		this.walkLatency = b.walkLatency;
+		this.output = b.output;
+	}
+
+	public static Builder builder(){
+		return new Builder();
+	}
+
+	public Builder toBuilder(){
+		return new Builder()
+				.frameSize(frameSize).frames(frames).pages(pages)
+				.tlbSize(tlbSize).tlbWays(tlbWays)
+				.policy(policy).pageTable(pageTable)
+				.prefetch(prefetch).prefetchShare(prefetchShare)
+				.dirtyBits(dirtyBits).backingStore(backingStore)
+				.hugePages(hugePages).hugeTLBSize(hugeTLBSize).promoteAt(promoteAt)
+				.compressedPool(compressedPool)
+				.l2TLBSize(l2TLBSize).pwcSize(pwcSize).walkLatency(walkLatency)
+				.output(output);
+	}
+
+	/*
+	 * This method returns this configuration with the options given on the command line:
+	 * -frames, -tlb, -ways, -pagetable, -prefetch, -huge, -hugetlb, -promote, -zswap, -l2tlb, -pwc, -walk and -output, and the
+	 * replacement policy as the second positional argument
+	 */
+	public SimulatorConfig with(Options options){
+		return toBuilder()
+				.frames(options.getInt("frames",frames))
+				.tlbSize(options.getInt("tlb",tlbSize))
+				.tlbWays(options.getInt("ways",tlbWays))
+				.policy(options.get(1,policy))
+				.pageTable(options.get("pagetable",pageTable))
+				.prefetch(options.get("prefetch",prefetch))
+				.hugePages(options.getInt("huge",hugePages))
+				.hugeTLBSize(options.getInt("hugetlb",hugeTLBSize))
+				.promoteAt(options.getInt("promote",promoteAt))
+				.compressedPool(options.getInt("zswap",compressedPool))
+				.l2TLBSize(options.getInt("l2tlb",l2TLBSize))
+				.pwcSize(options.getInt("pwc",pwcSize))
+				.walkLatency(options.getInt("walk",walkLatency))
+				.output(options.get("output",output))
+				.build();
+	}
+
+	public static final class Builder {
+		private int frameSize = 256;
+		private int frames = 128;
+		private int pages = 256;
+		private int tlbSize = 16;
+		private int tlbWays = 0;
+		private String policy = "lru";
+		private String pageTable = "flat";
+		private String prefetch = "none";
+		private int prefetchShare = 4;
+		private boolean dirtyBits = false;
+		private String backingStore = BackingStore.FILE_NAME;
+		private int hugePages = 0;
+		private int hugeTLBSize = 16;
+		private int promoteAt = 0;
+		private int compressedPool = 0;
+		private int l2TLBSize = 0;
+		private int pwcSize = 0;
+		private int walkLatency = 0;
+		private String output = "text";
+
+		public Builder frameSize(int frameSize){ this.frameSize = frameSize; return this; }
+		public Builder frames(int frames){ this.frames = frames; return this; }
+		public Builder pages(int pages){ this.pages = pages; return this; }
+		public Builder tlbSize(int tlbSize){ this.tlbSize = tlbSize; return this; }
+		public Builder tlbWays(int tlbWays){ this.tlbWays = tlbWays; return this; }
+		public Builder policy(String policy){ this.policy = policy; return this; }
+		public Builder pageTable(String pageTable){ this.pageTable = pageTable; return this; }
+		public Builder prefetch(String prefetch){ this.prefetch = prefetch; return this; }
+		public Builder prefetchShare(int prefetchShare){ this.prefetchShare = prefetchShare; return this; }
+		public Builder dirtyBits(boolean dirtyBits){ this.dirtyBits = dirtyBits; return this; }
+		public Builder backingStore(String backingStore){ this.backingStore = backingStore; return this; }
+		public Builder hugePages(int hugePages){ this.hugePages = hugePages; return this; }
+		public Builder hugeTLBSize(int hugeTLBSize){ this.hugeTLBSize = hugeTLBSize; return this; }
+		public Builder promoteAt(int promoteAt){ this.promoteAt = promoteAt; return this; }
+		public Builder compressedPool(int compressedPool){ this.compressedPool = compressedPool; return this; }
+		public Builder l2TLBSize(int l2TLBSize){ this.l2TLBSize = l2TLBSize; return this; }
+		public Builder pwcSize(int pwcSize){ this.pwcSize = pwcSize; return this; }
+		public Builder walkLatency(int walkLatency){ this.walkLatency = walkLatency; return this; }
+		public Builder output(String output){ this.output = output; return this; }
+
+		public SimulatorConfig build(){
+			if(frames<1 || pages<1){
+				throw new IllegalArgumentException("Number of frames and pages must be at least 1");
+			}
+			if(frameSize<1 || Integer.bitCount(frameSize)!=1 || Integer.bitCount(pages)!=1){
+				throw new IllegalArgumentException("Frame size and number of pages must be powers of two");
+			}
+			ReplacementPolicy.checkName(policy);
+			PageTable.checkName(pageTable);
+			Prefetcher.checkMode(prefetch);
+			TLB.check(tlbSize,(tlbWays==0)?tlbSize:tlbWays);
+			if(prefetchShare<1){
+				throw new IllegalArgumentException("Prefetch share must be at least 1");
+			}
+			if(hugePages!=0 && (hugePages<2 || Integer.bitCount(hugePages)!=1 || hugePages>pages || hugePages>frames)){
+				throw new IllegalArgumentException("Huge page must be a power of two of at least 2 base pages, up to the number of frames");
+			}
+			if(promoteAt<0 || promoteAt>hugePages){
+				throw new IllegalArgumentException("Promotion threshold must be at most the base pages of a huge page");
+			}
+			if(compressedPool<0){
+				throw new IllegalArgumentException("Compressed swap pool cannot be negative");
+			}
+			if(l2TLBSize<0 || pwcSize<0 || walkLatency<0){
+				throw new IllegalArgumentException("Second-level TLB, page-walk cache and walk latency cannot be negative");
+			}
+			if(!output.equals("text") && !output.equals("binary") && !output.equals("none")){
+				throw new IllegalArgumentException("Unknown output mode: "+output);
+			}
+			return new SimulatorConfig(this);
+		}
+	}
+}
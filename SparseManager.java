@@ -0,0 +1,126 @@
+import java.io.IOException;
+
+public class SparseManager {
+
+	/*
+	 * Address translation for wide (e.g. 32 or 48 bit) and sparse address spaces. Nothing is
+	 * sized by the number of pages: the page table is a radix or inverted table, the TLB is
+	 * tagged by a hash, and LRU replacement keeps frames in order rather than pages. There is
+	 * no swap area image this large, so only the statistics are computed: page fault and TLB
+	 * hit rates, and the footprint and walk cost of the page table.
+	 *
+	 * Usage: java SparseManager trace.txt [-bits=48] [-pagesize=4096] [-frames=1024] [-tlb=64] [-pagetable=radix4]
+	 * */
+
+	public static int ADDRESS_BITS = 48;	//Bits of a logical address
+	public static int FRAME_SIZE = 4096;	//Size of each frame and page
+	public static int FRAMES = 1024;		//Number of frames in physical memory
+	public static int TLB_SIZE = 64;		//Size of TLB table
+	public static String PAGE_TABLE = "radix4";	//Page table structure
+
+	public PageTable pageTable;		//Page number to frame
+	public TaggedTLB tlb;			//TLB, the page number is split into tag and page
+	public AddressDecoder decoder;	//Splits an address into page and offset
+	public long[] framePage;		//page held by each frame
+	public FrameLists lru;			//used frames in LRU order, list 0
+	public int frame;				//next never used frame
+	public int frames;
+
+	/*for statistics purpose*/
+	public long pageFault;
+	public long TLBHit;
+	public long totalAddress;
+
+	public SparseManager(int addressBits,int frameSize,int frames,int tlbSize,String pageTableName){
+		this.decoder = AddressDecoder.forSizes(1L<<(addressBits-Integer.numberOfTrailingZeros(frameSize)),frameSize);
+		this.pageTable = PageTable.create(pageTableName,decoder.pageBits,frames);
+		this.tlb = new TaggedTLB(tlbSize,tlbSize);
+		this.framePage = new long[frames];
+		this.lru = new FrameLists(frames,1);
+		this.frames = frames;
+		this.frame = 0;
+	}
+
+	/*
+	 * Our program starts here
+	 */
+	public static void main(String[] args){
+		Options options = new Options(args);
+		if(options.count()!=1){
+			System.out.println("Please specify a file name");
+			System.out.println("Usage: java SparseManager trace.txt [-bits=48] [-pagesize=4096] [-frames=1024] [-tlb=64] [-pagetable=radix2|radix3|radix4|inverted|flat]");
+			return;
+		}
+		try{
+			int bits = options.getInt("bits",ADDRESS_BITS);
+			int pageSize = options.getInt("pagesize",FRAME_SIZE);
+			int frames = options.getInt("frames",FRAMES);
+			int tlbSize = options.getInt("tlb",TLB_SIZE);
+			String pageTable = options.get("pagetable",PAGE_TABLE);
+			options.checkUsed();
+			SparseManager vm = new SparseManager(bits,pageSize,frames,tlbSize,pageTable);
+			vm.readAddressesFromFile(options.get(0,null));
+		}catch(IllegalArgumentException e){
+			System.out.println("Error: "+e.getMessage());
+		}
+	}
+
+	/*
+	 * This method translates one logical address and returns the frame holding it
+	 */
+	public int translate(long number){
+		long pageNumber = decoder.page(number);
+		int tag = (int)(pageNumber>>>32);
+		int low = (int)pageNumber;
+		totalAddress++;
+		int TLBIndex = tlb.lookup(tag,low);
+		if(TLBIndex!=-1){
+			/*TLB hits!*/
+			TLBHit++;
+			int currentFrame = tlb.frame[TLBIndex];
+			lru.moveToFront(0,currentFrame);
+			return currentFrame;
+		}
+		int currentFrame = pageTable.lookup(pageNumber);
+		if(currentFrame==-1){
+			/*Handling page fault*/
+			pageFault++;
+			if(frame<frames){
+				currentFrame = frame++;
+			}else{
+				currentFrame = lru.last(0);
+				long victimPage = framePage[currentFrame];
+				pageTable.unmap(victimPage);
+				tlb.invalidate((int)(victimPage>>>32),(int)victimPage);	//the victim must not hit in TLB any more
+				lru.remove(0,currentFrame);
+			}
+			pageTable.map(pageNumber,currentFrame);
+			framePage[currentFrame] = pageNumber;
+			lru.pushFront(0,currentFrame);
+		}else{
+			lru.moveToFront(0,currentFrame);
+		}
+		tlb.insert(tag,low,currentFrame);
+		return currentFrame;
+	}
+
+	/*
+	 * This method reads the addresses from file and prints the statistics
+	 * */
+	public void readAddressesFromFile(String fileName){
+		try{
+			TraceReader trace = TraceReader.open(fileName);	//text or binary trace
+			while(trace.next()){
+				translate(trace.address());
+			}
+			trace.close();
+		}catch(IOException e){
+			System.out.println("Error: specified file or line cannot be found");
+			return;
+		}
+		System.out.println("Page fault rate: "+(float)pageFault/totalAddress*100+'%');
+		System.out.println("TLB hit rate: "+(float)TLBHit/totalAddress*100+'%');
+		System.out.println("Page table: "+pageTable.name()+", "+pageTable.footprint()+" bytes");
+		System.out.println("Entries read per walk: "+(float)pageTable.entriesRead()/pageTable.walks());
+	}
+}
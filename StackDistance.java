@@ -0,0 +1,182 @@
+import java.io.IOException;
+
+public class StackDistance {
+
+	/*
+	 * Mattson stack-distance analysis. LRU has the inclusion property: the pages held by n
+	 * frames are always the n most recently used ones, so a reference faults with n frames
+	 * exactly when its stack distance (the number of distinct pages used since the last
+	 * reference to the same page, itself included) is larger than n. One pass over the trace
+	 * builds the histogram of distances, and the page fault count of every frame count and the
+	 * TLB hit count of every fully associative TLB size follow from its running sums.
+	 *
+	 * The distance is found with a Fenwick tree over timestamps: only the latest use of each
+	 * page is marked, so the number of marks after the page's last use is its depth in the
+	 * stack. The timestamps are renumbered whenever the tree is full, which keeps it at
+	 * 2 x PAGES entries and each reference at O(log PAGES).
+	 *
+	 * Usage: java StackDistance addresses.txt
+	 * */
+
+	public int pages;			//Number of pages in logical memory
+	public int capacity;		//Number of timestamps in the tree before renumbering
+	public int[] tree;			//Fenwick tree, 1 marks the latest use of some page
+	public int[] lastUse;		//lastUse[page] is the timestamp of its latest use, -1 if never used
+	public int[] owner;			//owner[timestamp] is the page used at that time, -1 if not latest
+	public int now;				//Next timestamp
+
+	/*histogram[d] is the number of references at stack distance d, coldMisses the first references*/
+	public long[] histogram;
+	public long coldMisses;
+	public long totalAddress;
+
+	public StackDistance(int pages){
+		this.pages = pages;
+		this.capacity = 2*pages;
+		this.tree = new int[capacity+1];
+		this.lastUse = new int[pages];
+		this.owner = new int[capacity];
+		this.histogram = new long[pages+1];
+		for(int i=0;i<pages;i++){
+			lastUse[i] = -1;
+		}
+		for(int i=0;i<capacity;i++){
+			owner[i] = -1;
+		}
+	}
+
+	public static void main(String[] args){
+		Options options = new Options(args);
+		if(options.count()!=1){
+			System.out.println("Please specify a file name");
+			System.out.println("Usage: java StackDistance addresses.txt");
+			return;
+		}
+		try{
+			options.checkUsed();
+		}catch(IllegalArgumentException e){
+			System.out.println("Error: "+e.getMessage());
+			return;
+		}
+		AddressDecoder decoder = AddressDecoder.forSizes(Modification.PRESET.pages,Modification.PRESET.frameSize);
+		StackDistance analysis = new StackDistance(Modification.PRESET.pages);
+		try{
+			TraceReader trace = TraceReader.open(options.get(0,null));	//text or binary trace
+			while(trace.next()){
+				analysis.access((int)decoder.page(trace.address()));
+			}
+			trace.close();
+		}catch(IOException e){
+			System.out.println("Error: specified file or line cannot be found");
+			return;
+		}
+		analysis.print();
+	}
+
+	/*
+	 * This method records one reference to the page and returns its stack distance,
+	 * 0 if the page was never used before
+	 */
+	public int access(int page){
+		if(now==capacity){
+			renumber();
+		}
+		int distance = 0;
+		int last = lastUse[page];
+		totalAddress++;
+		if(last==-1){
+			coldMisses++;
+		}else{
+			distance = sum(now)-sum(last+1)+1;	//pages used after the last use, and the page itself
+			histogram[distance]++;
+			add(last,-1);
+			owner[last] = -1;
+		}
+		add(now,1);
+		owner[now] = page;
+		lastUse[page] = now++;
+		return distance;
+	}
+
+	/*
+	 * This method returns the number of page faults of LRU replacement with the given number
+	 * of frames, the same count Modification reports with that many -frames
+	 */
+	public long pageFaults(int frames){
+		long faults = coldMisses;
+		for(int d=frames+1;d<=pages;d++){
+			faults += histogram[d];
+		}
+		return faults;
+	}
+
+	/*
+	 * This method returns the number of hits of a fully associative LRU TLB of the given size.
+	 * It matches Modification whenever the TLB is not larger than the physical memory, since
+	 * pages evicted from memory are then never still in the TLB
+	 */
+	public long TLBHits(int size){
+		long hits = 0;
+		for(int d=1;d<=size && d<=pages;d++){
+			hits += histogram[d];
+		}
+		return hits;
+	}
+
+	/*
+	 * This method prints the page fault rate and the TLB hit rate for every size from 1 to
+	 * PAGES, using running sums of the histogram
+	 */
+	public void print(){
+		System.out.println(String.format("%8s %12s %16s %14s","Size","Page faults","Page fault rate","TLB hit rate"));
+		long hits = 0;
+		for(int size=1;size<=pages;size++){
+			hits += histogram[size];
+			long faults = totalAddress-hits;
+			System.out.println(String.format("%8d %12d %15.4f%% %13.4f%%",
+					size,faults,(float)faults/totalAddress*100,(float)hits/totalAddress*100));
+		}
+	}
+
+	/*
+	 * This method moves the latest use of every page to the front of the timestamps, keeping
+	 * their order, and rebuilds the tree
+	 */
+	private void renumber(){
+		int next = 0;
+		for(int t=0;t<capacity;t++){
+			int page = owner[t];
+			if(page!=-1){
+				owner[t] = -1;
+				owner[next] = page;
+				lastUse[page] = next++;
+			}
+		}
+		for(int i=1;i<=capacity;i++){
+			tree[i] = (i<=next)?1:0;
+		}
+		for(int i=1;i<=capacity;i++){
+			int parent = i+(i&-i);
+			if(parent<=capacity){
+				tree[parent] += tree[i];
+			}
+		}
+		now = next;
+	}
+
+	/*Adds delta at the given timestamp*/
+	private void add(int t,int delta){
+		for(int i=t+1;i<=capacity;i+=i&-i){
+			tree[i] += delta;
+		}
+	}
+
+	/*Returns the number of marks before the given timestamp*/
+	private int sum(int t){
+		int total = 0;
+		for(int i=t;i>0;i-=i&-i){
+			total += tree[i];
+		}
+		return total;
+	}
+}
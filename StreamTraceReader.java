@@ -0,0 +1,183 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+
+public class StreamTraceReader extends TraceReader {
+
+	/*
+	 * Reads a text trace as it is produced: from stdin ("-"), a named pipe, or a local TCP
+	 * socket ("tcp:PORT", waiting on the loopback address for one connection). A producer
+	 * thread parses lines into batches and the translation loop consumes them in order.
+	 *
+	 * The batches are allocated once and passed around two bounded queues: free batches go
+	 * to the producer, filled batches to the consumer, which takes over the arrays of a batch
+	 * instead of copying them. When the consumer falls behind the producer runs out of free
+	 * batches and stops reading, so memory stays at RING batches however long the stream
+	 * runs. A batch is handed over early when no more input is ready, so a slow stream is
+	 * simulated as it arrives.
+	 * */
+
+	public static int RING = 4;		//Number of batches between the producer and the consumer
+
+	/*One batch of parsed references*/
+	public static class Batch {
+		public long[] addresses;
+		public boolean[] writes;
+		public int[] pids;
+		public byte[] kinds;
+		public int count;
+
+		public Batch(int size){
+			this.addresses = new long[size];
+			this.writes = new boolean[size];
+			this.pids = new int[size];
+			this.kinds = new byte[size];
+		}
+	}
+
+	private static final Batch END = new Batch(0);
+
+	public InputStream in;
+	public ServerSocket server;			//Listening socket, null unless reading from TCP
+	public Socket socket;
+	public TextTraceReader parser;		//Parses the lines on the producer thread
+	public ArrayBlockingQueue<Batch> free;
+	public ArrayBlockingQueue<Batch> full;
+	public Batch current;				//Batch whose arrays the consumer is reading
+	public Thread producer;
+	public volatile Exception error;	//Error of the producer, reported at the end of the stream
+	public boolean ended;
+
+	public StreamTraceReader(InputStream in,boolean tagged){
+		this.in = in;
+		this.parser = new TextTraceReader(in,tagged);
+		this.parser.eager = true;
+		this.free = new ArrayBlockingQueue<Batch>(RING);
+		this.full = new ArrayBlockingQueue<Batch>(RING+1);
+		for(int i=0;i<RING;i++){
+			free.add(new Batch(BATCH));
+		}
+		this.producer = new Thread(this::produce,"trace-producer");
+		this.producer.setDaemon(true);
+		this.producer.start();
+	}
+
+	/*
+	 * This method opens the stream named by source: "-" for stdin, "tcp:PORT" for a local
+	 * socket, otherwise a named pipe or any other file read as a stream
+	 */
+	public static StreamTraceReader open(String source,boolean tagged) throws IOException{
+		if(source.equals("-")){
+			return new StreamTraceReader(System.in,tagged);
+		}
+		if(source.startsWith("tcp:")){
+			int port;
+			try{
+				port = Integer.parseInt(source.substring(4));
+			}catch(NumberFormatException e){
+				throw new IllegalArgumentException("Expected tcp:PORT: "+source);
+			}
+			ServerSocket server = new ServerSocket(port,1,InetAddress.getLoopbackAddress());
+			Socket socket;
+			try{
+				socket = server.accept();	//wait for the tracing tool to connect
+			}catch(IOException e){
+				server.close();
+				throw e;
+			}
+			StreamTraceReader reader = new StreamTraceReader(socket.getInputStream(),tagged);
+			reader.server = server;
+			reader.socket = socket;
+			return reader;
+		}
+		return new StreamTraceReader(new FileInputStream(source),tagged);
+	}
+
+	/*
+	 * This method returns true if the name is read as a stream rather than as a trace file
+	 */
+	public static boolean isStream(String source){
+		if(source.equals("-") || source.startsWith("tcp:")){
+			return true;
+		}
+		File file = new File(source);
+		return file.exists() && !file.isFile() && !file.isDirectory();	//e.g. a named pipe
+	}
+
+	/*
+	 * The producer thread: parses batches until the end of the stream or an error
+	 */
+	private void produce(){
+		try{
+			while(true){
+				Batch batch = free.take();
+				parser.addresses = batch.addresses;
+				parser.writes = batch.writes;
+				parser.pids = batch.pids;
+				parser.kinds = batch.kinds;
+				batch.count = parser.fill();
+				if(batch.count==0){
+					break;
+				}
+				full.put(batch);
+			}
+		}catch(InterruptedException e){
+			return;		//closed by the consumer
+		}catch(Exception e){
+			error = e;
+		}
+		try{
+			full.put(END);
+		}catch(InterruptedException e){
+			//closed by the consumer
+		}
+	}
+
+	protected int fill() throws IOException{
+		if(ended){
+			return 0;
+		}
+		if(current!=null){
+			free.add(current);	//the consumer is done with it
+			current = null;
+		}
+		Batch batch;
+		try{
+			batch = full.take();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the trace");
+		}
+		if(batch==END){
+			ended = true;
+			Exception e = error;
+			if(e instanceof IOException){
+				throw (IOException)e;
+			}
+			if(e instanceof RuntimeException){
+				throw (RuntimeException)e;
+			}
+			return 0;
+		}
+		current = batch;
+		addresses = batch.addresses;
+		writes = batch.writes;
+		pids = batch.pids;
+		kinds = batch.kinds;
+		return batch.count;
+	}
+
+	public void close() throws IOException{
+		producer.interrupt();
+		in.close();
+		if(socket!=null){
+			socket.close();
+			server.close();
+		}
+	}
+}
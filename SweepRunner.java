@@ -0,0 +1,128 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class SweepRunner {
+
+	/*
+	 * Runs the Modification preset over a grid of configurations (frames x TLB size x replacement
+	 * policy) in parallel. The trace is read once into an array shared read-only by every run, and
+	 * each run has its own Engine, built from its own configuration, and its own view of the swap area.
+	 *
+	 * Usage: java SweepRunner addresses.txt [-frames=32,64,128] [-tlb=16,64] [-policy=lru,clock,2q,arc] [-threads=N]
+	 * */
+
+	/*The outcome of one configuration*/
+	public static class Result {
+		public String policy;
+		public int frames;
+		public int tlbSize;
+		public float pageFaultRate;
+		public float TLBHitRate;
+		public double addressesPerSecond;
+	}
+
+	public static void main(String[] args){
+		Options options = new Options(args);
+		if(options.count()!=1){
+			System.out.println("Please specify a file name");
+			System.out.println("Usage: java SweepRunner addresses.txt [-frames=32,64,128] [-tlb=16,64] [-policy=lru,clock,2q,arc] [-threads=N]");
+			return;
+		}
+		try{
+			int[] frames = parseList(options.get("frames","32,64,128"));
+			int[] tlbSizes = parseList(options.get("tlb","16,64"));
+			String[] policies = options.get("policy","lru,clock,2q,arc").split(",");
+			int threads = options.getInt("threads",Runtime.getRuntime().availableProcessors());
+			options.checkUsed();
+			long[] addresses = TraceReader.readAll(options.get(0,null));
+			List<Result> results = sweep(addresses,frames,tlbSizes,policies,threads);
+			print(results);
+		}catch(IllegalArgumentException e){
+			System.out.println("Error: "+e.getMessage());
+		}catch(IOException e){
+			System.out.println("Error: specified file or line cannot be found");
+		}
+	}
+
+	/*
+	 * This method simulates every configuration of the grid on a fork-join pool and returns the
+	 * results in grid order
+	 */
+	public static List<Result> sweep(long[] addresses,int[] frames,int[] tlbSizes,String[] policies,int threads) throws IOException{
+		List<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+		for(String policy:policies){
+			for(int f:frames){
+				for(int t:tlbSizes){
+					SimulatorConfig config = Modification.PRESET.toBuilder().policy(policy).frames(f).tlbSize(t).tlbWays(0).output("none").build();	//fails fast on a bad configuration
+					tasks.add(() -> simulate(addresses,config));
+				}
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<Result> results = new ArrayList<Result>();
+		try{
+			for(Future<Result> future:pool.invokeAll(tasks)){
+				results.add(future.get());
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while simulating");
+		}catch(ExecutionException e){
+			if(e.getCause() instanceof IOException){
+				throw (IOException)e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}finally{
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	/*
+	 * This method runs one configuration over the whole trace
+	 */
+	public static Result simulate(long[] addresses,SimulatorConfig config) throws IOException{
+		Engine vm = new Engine(config);
+		vm.backingStore = new BackingStore(config.backingStore,config.frameSize,false);
+		long start = System.nanoTime();
+		for(int i=0;i<addresses.length;i++){
+			vm.translate(addresses[i],false);
+		}
+		long elapsed = System.nanoTime()-start;
+		vm.backingStore.close();
+		Result result = new Result();
+		result.policy = vm.policy.name();
+		result.frames = config.frames;
+		result.tlbSize = config.tlbSize;
+		result.pageFaultRate = (float)vm.pageFault/vm.totalAddress*100;
+		result.TLBHitRate = (float)vm.TLBHit/vm.totalAddress*100;
+		result.addressesPerSecond = addresses.length/(elapsed/1e9);
+		return result;
+	}
+
+	public static void print(List<Result> results){
+		System.out.println(String.format("%-8s %8s %8s %16s %14s %16s","Policy","Frames","TLB","Page fault rate","TLB hit rate","Addresses/s"));
+		for(Result r:results){
+			System.out.println(String.format("%-8s %8d %8d %15.4f%% %13.4f%% %16.0f",
+					r.policy,r.frames,r.tlbSize,r.pageFaultRate,r.TLBHitRate,r.addressesPerSecond));
+		}
+	}
+
+	private static int[] parseList(String list){
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for(int i=0;i<parts.length;i++){
+			try{
+				values[i] = Integer.parseInt(parts[i].trim());
+			}catch(NumberFormatException e){
+				throw new IllegalArgumentException("Expected a list of numbers: "+list);
+			}
+		}
+		return values;
+	}
+}
@@ -0,0 +1,202 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class TLB {
+
+	/*
+	 * Translation lookaside buffer shared by the managers. Entries are grouped into sets of
+	 * "ways" entries: ways == 1 is direct-mapped, ways == size is fully associative. A page can
+	 * only be cached in set (page % sets). Each set keeps its entries in LRU order with an
+	 * intrusive int list, and slotOf maps a page straight to its entry, so lookup and update
+	 * are O(1) and allocate nothing.
+	 * */
+
+	public static int MIN_SIZE = 16;	//Smallest supported TLB
+	public static int MAX_SIZE = 4096;	//Largest supported TLB
+
+	public int size;		//Number of entries
+	public int ways;		//Entries per set
+	public int sets;		//Number of sets
+
+	/*if page[i]=pageNumber, the related frame to that page number is frame[i]*/
+	public int[] page;		//TLB table, page section
+	public int[] frame;		//TLB table, frame section
+	public int[] dirty;		//TLB table, dirty bit
+	public int[] slotOf;	//slotOf[pageNumber] is the entry holding that page, -1 if none
+	public int[] used;		//Number of entries filled in each set
+
+	/*
+	 * This method throws IllegalArgumentException unless a TLB can have that size and ways
+	 */
+	public static void check(int size,int ways){
+		if(size<MIN_SIZE || size>MAX_SIZE || Integer.bitCount(size)!=1){
+			throw new IllegalArgumentException("TLB size must be a power of two between "+MIN_SIZE+" and "+MAX_SIZE);
+		}
+		if(ways<1 || ways>size || Integer.bitCount(ways)!=1){
+			throw new IllegalArgumentException("TLB ways must be a power of two between 1 and the TLB size");
+		}
+	}
+
+	/*LRU order of each set. The sentinel of set s is node size+s, next of it is the most recently used*/
+	public int[] prev;
+	public int[] next;
+
+	public TLB(int size,int ways,int pages){
+		check(size,ways);
+		this.size = size;
+		this.ways = ways;
+		this.sets = size/ways;
+		this.page = new int[size];
+		this.frame = new int[size];
+		this.dirty = new int[size];
+		this.slotOf = new int[pages];
+		this.used = new int[sets];
+		this.prev = new int[size+sets];
+		this.next = new int[size+sets];
+		for(int i=0;i<size;i++){
+			page[i] = -1;
+			frame[i] = -1;
+		}
+		for(int i=0;i<pages;i++){
+			slotOf[i] = -1;
+		}
+		for(int s=0;s<sets;s++){
+			prev[size+s] = size+s;
+			next[size+s] = size+s;
+		}
+	}
+
+	/*
+	 * This method returns the entry holding the page and makes it the most recently used one
+	 * in its set. If the page is not cached it returns -1
+	 */
+	public int lookup(int pageNumber){
+		int index = slotOf[pageNumber];
+		if(index!=-1){
+			moveToFront(index);
+		}
+		return index;
+	}
+
+	/*
+	 * This method caches the page, replacing the least recently used entry of its set if the
+	 * set is full, and returns the entry used
+	 */
+	public int insert(int pageNumber,int frameNumber){
+		int index = slotOf[pageNumber];
+		if(index==-1){
+			index = allocate(pageNumber&(sets-1));
+		}else{
+			moveToFront(index);
+		}
+		page[index] = pageNumber;
+		frame[index] = frameNumber;
+		slotOf[pageNumber] = index;
+		return index;
+	}
+
+	/*
+	 * This method removes the page from TLB. The freed entry becomes the least recently used
+	 * one of its set so it is reused first
+	 */
+	public void invalidate(int pageNumber){
+		int index = slotOf[pageNumber];
+		if(index==-1){
+			return;
+		}
+		slotOf[pageNumber] = -1;
+		release(index);
+	}
+
+	/*
+	 * This method takes an entry of the set for a new page: an unused one while the set is
+	 * not full, otherwise the least recently used one. The entry becomes the most recently used
+	 */
+	protected int allocate(int set){
+		int index;
+		if(used[set]<ways){
+			index = set*ways + used[set]++;	//set is not full yet
+		}else{
+			index = prev[size+set];			//least recently used entry of the set
+			unlink(index);
+			if(page[index]!=-1){
+				forget(index);
+			}
+		}
+		linkFront(index);
+		dirty[index] = 0;
+		return index;
+	}
+
+	/*
+	 * This method removes the mapping to an entry that is about to be reused
+	 */
+	protected void forget(int index){
+		slotOf[page[index]] = -1;
+	}
+
+	/*
+	 * This method empties the entry and moves it to the least recently used end of its set
+	 */
+	protected void release(int index){
+		page[index] = -1;
+		frame[index] = -1;
+		dirty[index] = 0;
+		unlink(index);
+		int tail = size+(index/ways);
+		int last = prev[tail];
+		prev[index] = last;
+		next[index] = tail;
+		next[last] = index;
+		prev[tail] = index;
+	}
+
+	protected void moveToFront(int index){
+		unlink(index);
+		linkFront(index);
+	}
+
+	protected void unlink(int index){
+		next[prev[index]] = next[index];
+		prev[next[index]] = prev[index];
+	}
+
+	protected void linkFront(int index){
+		int head = size+(index/ways);
+		int first = next[head];
+		prev[index] = head;
+		next[index] = first;
+		prev[first] = index;
+		next[head] = index;
+	}
+
+	/*
+	 * This method writes the entries and their LRU order to a checkpoint
+	 */
+	public void save(DataOutputStream out) throws IOException{
+		Checkpoint.writeInts(out,page);
+		Checkpoint.writeInts(out,frame);
+		Checkpoint.writeInts(out,dirty);
+		Checkpoint.writeInts(out,slotOf);
+		Checkpoint.writeInts(out,used);
+		Checkpoint.writeInts(out,prev);
+		Checkpoint.writeInts(out,next);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		Checkpoint.readInts(in,page);
+		Checkpoint.readInts(in,frame);
+		Checkpoint.readInts(in,dirty);
+		Checkpoint.readInts(in,slotOf);
+		Checkpoint.readInts(in,used);
+		Checkpoint.readInts(in,prev);
+		Checkpoint.readInts(in,next);
+	}
+
+	public void print(){
+		for(int i=0;i<size;i++){
+			System.out.println("Page: "+page[i]+" Frame: "+frame[i]);
+		}
+	}
+}
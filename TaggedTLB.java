@@ -0,0 +1,80 @@
+public class TaggedTLB extends TLB {
+
+	/*
+	 * TLB whose entries are tagged with an address space identifier (ASID), so the entries of
+	 * several processes live side by side and a context switch does not flush anything.
+	 * The reverse map is a hash on (ASID, page) instead of a page-indexed array, so its size
+	 * depends on the TLB size only, not on the number of processes.
+	 * */
+
+	public int[] asid;				//TLB table, ASID section
+	public LongIntHashMap slots;	//(ASID, page) to entry
+
+	public TaggedTLB(int size,int ways){
+		super(size,ways,0);
+		this.asid = new int[size];
+		this.slots = new LongIntHashMap(size);
+	}
+
+	private static long key(int asidNumber,int pageNumber){
+		return ((long)asidNumber<<32)|(pageNumber&0xFFFFFFFFL);
+	}
+
+	/*
+	 * This method returns the entry holding the page of the address space and makes it the
+	 * most recently used one in its set. If it is not cached it returns -1
+	 */
+	public int lookup(int asidNumber,int pageNumber){
+		int index = slots.get(key(asidNumber,pageNumber));
+		if(index!=-1){
+			moveToFront(index);
+		}
+		return index;
+	}
+
+	/*
+	 * This method caches the page of the address space and returns the entry used
+	 */
+	public int insert(int asidNumber,int pageNumber,int frameNumber){
+		long key = key(asidNumber,pageNumber);
+		int index = slots.get(key);
+		if(index==-1){
+			index = allocate(pageNumber&(sets-1));
+			slots.put(key,index);
+		}else{
+			moveToFront(index);
+		}
+		asid[index] = asidNumber;
+		page[index] = pageNumber;
+		frame[index] = frameNumber;
+		return index;
+	}
+
+	/*
+	 * This method removes the page of the address space from TLB (a TLB shootdown)
+	 */
+	public void invalidate(int asidNumber,int pageNumber){
+		long key = key(asidNumber,pageNumber);
+		int index = slots.get(key);
+		if(index!=-1){
+			slots.remove(key);
+			release(index);
+		}
+	}
+
+	protected void forget(int index){
+		slots.remove(key(asid[index],page[index]));
+	}
+
+	public int lookup(int pageNumber){
+		return lookup(0,pageNumber);
+	}
+
+	public int insert(int pageNumber,int frameNumber){
+		return insert(0,pageNumber,frameNumber);
+	}
+
+	public void invalidate(int pageNumber){
+		invalidate(0,pageNumber);
+	}
+}
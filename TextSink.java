@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+public class TextSink extends ChannelSink {
+
+	/*
+	 * Writes each reference as a line of text in the format the programs always printed:
+	 * "Virtual address: 16916 Physical address: 20 Value: 0" (plus " Dirty bit: 0" for
+	 * programs with dirty bits). Numbers are formatted straight into the byte buffer, so
+	 * no String is built per reference.
+	 * */
+
+	private static final byte[] VIRTUAL = "Virtual address: ".getBytes();
+	private static final byte[] PHYSICAL = " Physical address: ".getBytes();
+	private static final byte[] VALUE = " Value: ".getBytes();
+	private static final byte[] DIRTY = " Dirty bit: ".getBytes();
+	private static final byte[] NEWLINE = System.lineSeparator().getBytes();
+	private static final int MAX_LINE = 160;
+
+	public boolean dirtyBits;	//true to print the dirty bit
+	public byte[] digits;		//scratch space for one number
+
+	public TextSink(WritableByteChannel channel,boolean closeChannel,boolean async,boolean dirtyBits){
+		super(channel,closeChannel,async);
+		this.dirtyBits = dirtyBits;
+		this.digits = new byte[20];
+	}
+
+	public void record(long virtualAddress,long physicalAddress,int value,int dirtyBit) throws IOException{
+		ensure(MAX_LINE);
+		buffer.put(VIRTUAL);
+		putDecimal(virtualAddress);
+		buffer.put(PHYSICAL);
+		putDecimal(physicalAddress);
+		buffer.put(VALUE);
+		putDecimal(value);
+		if(dirtyBits){
+			buffer.put(DIRTY);
+			putDecimal(dirtyBit);
+		}
+		buffer.put(NEWLINE);
+	}
+
+	/*
+	 * This method writes the number in decimal into the buffer
+	 */
+	private void putDecimal(long number){
+		if(number==Long.MIN_VALUE){
+			buffer.put(Long.toString(number).getBytes());
+			return;
+		}
+		if(number<0){
+			buffer.put((byte)'-');
+			number = -number;
+		}
+		int i = digits.length;
+		do{
+			digits[--i] = (byte)('0'+number%10);
+			number /= 10;
+		}while(number!=0);
+		buffer.put(digits,i,digits.length-i);
+	}
+}
@@ -0,0 +1,136 @@
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+public class TextTraceReader extends TraceReader {
+
+	/*
+	 * Reads the text traces, one decimal address per line optionally followed by R or W
+	 * (e.g. "16916 R"). A line is a write if its last non blank character is W.
+	 * In a tagged trace every line starts with a process ID (e.g. "3 16916 R"), and a line may
+	 * also be a process event: "3 fork 7" (process 3 forks process 7) or "3 exit".
+	 * Lines are parsed in place without trim() or split().
+	 * */
+
+	public BufferedReader reader;
+	public boolean tagged;		//true if lines start with a process ID
+	public int end;				//Position after the last number parsed
+	public boolean eager;		//true to end a batch early when no more input is ready
+
+	public TextTraceReader(String fileName) throws IOException{
+		this(fileName,false);
+	}
+
+	public TextTraceReader(String fileName,boolean tagged) throws IOException{
+		this(new FileInputStream(fileName),tagged);
+	}
+
+	public TextTraceReader(InputStream in,boolean tagged){
+		this.reader = new BufferedReader(new InputStreamReader(in),1<<16);
+		this.tagged = tagged;
+	}
+
+	protected int fill() throws IOException{
+		int n = 0;
+		String line;
+		while(n<addresses.length && (n==0 || !eager || reader.ready()) && (line = reader.readLine())!=null){
+			int from = 0;
+			if(tagged){
+				pids[n] = (int)parseNumber(line,0);
+				from = end;
+				if(isEventLine(line,from)){
+					kinds[n] = parseEvent(line,from,n);
+					writes[n] = false;
+					n++;
+					continue;
+				}
+				kinds[n] = REFERENCE;
+			}
+			addresses[n] = parseNumber(line,from);
+			writes[n] = isWriteLine(line);
+			n++;
+		}
+		return n;
+	}
+
+	/*
+	 * This method parses the decimal number starting at position from, skipping leading blanks
+	 */
+	public long parseNumber(String line,int from){
+		int i = from;
+		int length = line.length();
+		while(i<length && line.charAt(i)<=' '){
+			i++;
+		}
+		boolean negative = (i<length && line.charAt(i)=='-');
+		if(negative){
+			i++;
+		}
+		int start = i;
+		long value = 0;
+		while(i<length){
+			char c = line.charAt(i);
+			if(c<'0' || c>'9'){
+				break;
+			}
+			value = value*10+(c-'0');
+			i++;
+		}
+		if(i==start || (i<length && line.charAt(i)!=' ' && line.charAt(i)!='\t')){
+			throw new NumberFormatException("For input string: \""+line+"\"");
+		}
+		end = i;
+		return negative? -value : value;
+	}
+
+	/*
+	 * This method returns true if the first non blank character from position from is a letter
+	 */
+	private static boolean isEventLine(String line,int from){
+		int i = from;
+		while(i<line.length() && line.charAt(i)<=' '){
+			i++;
+		}
+		return i<line.length() && Character.isLetter(line.charAt(i));
+	}
+
+	/*
+	 * This method parses "fork CHILD" or "exit" starting at position from and returns its kind.
+	 * The child of a fork goes in place of address n, as in TraceReader
+	 */
+	public byte parseEvent(String line,int from,int n){
+		int i = from;
+		while(line.charAt(i)<=' '){
+			i++;
+		}
+		if(line.startsWith("fork",i)){
+			long child = parseNumber(line,i+4);
+			if(child<0 || child>Integer.MAX_VALUE){
+				throw new NumberFormatException("For input string: \""+line+"\"");
+			}
+			addresses[n] = child;
+			return FORK;
+		}
+		if(line.startsWith("exit",i) && line.substring(i+4).trim().isEmpty()){
+			return EXIT;
+		}
+		throw new NumberFormatException("For input string: \""+line+"\"");
+	}
+
+	/*
+	 * This method returns true if the last non blank character of the line is W
+	 */
+	public static boolean isWriteLine(String line){
+		int i = line.length()-1;
+		while(i>=0 && line.charAt(i)<=' '){
+			i--;
+		}
+		return i>=0 && line.charAt(i)=='W';
+	}
+
+	public void close() throws IOException{
+		reader.close();
+	}
+}
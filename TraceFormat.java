@@ -0,0 +1,52 @@
+public class TraceFormat {
+
+	/*
+	 * Binary trace format. A trace file starts with a 16 byte header:
+	 *
+	 *   int  MAGIC ("VMTR")
+	 *   byte VERSION
+	 *   byte encoding (FIXED or DELTA)
+	 *   short reserved
+	 *   long number of records
+	 *
+	 * followed by the records. Every record packs the address with the R/W bit in bit 0:
+	 * FIXED stores it as an 8 byte long, DELTA stores the zigzag encoded difference from
+	 * the previous address as an unsigned LEB128 varint, usually 2 or 3 bytes per reference.
+	 * Addresses must fit in 61 bits.
+	 * */
+
+	public static final int MAGIC = 0x564D5452;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+
+	public static final int FIXED = 0;		//8 bytes per record
+	public static final int DELTA = 1;		//varint of the delta from the previous address
+
+	/*
+	 * This method returns the encoding of the given name, "fixed" or "delta"
+	 */
+	public static int encoding(String name){
+		if(name.equals("fixed")){
+			return FIXED;
+		}
+		if(name.equals("delta")){
+			return DELTA;
+		}
+		throw new IllegalArgumentException("Unknown trace encoding: "+name);
+	}
+
+	/*
+	 * This method packs an address and its R/W bit into a record
+	 */
+	public static long pack(long address,boolean write){
+		return (address<<1)|(write?1:0);
+	}
+
+	public static long zigzag(long value){
+		return (value<<1)^(value>>63);
+	}
+
+	public static long unzigzag(long value){
+		return (value>>>1)^-(value&1);
+	}
+}
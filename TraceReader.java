@@ -0,0 +1,155 @@
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public abstract class TraceReader {
+
+	/*
+	 * Reads the references of a trace. Subclasses decode a whole batch at a time into
+	 * primitive arrays and the translation loop walks the batch with next().
+	 * */
+
+	public static int BATCH = 8192;	//Number of references decoded at a time
+
+	/*Kinds of the lines of a tagged trace. The child of a fork is stored in place of the address*/
+	public static final byte REFERENCE = 0;
+	public static final byte FORK = 1;
+	public static final byte EXIT = 2;
+
+	public long[] addresses;	//Decoded addresses of the current batch
+	public boolean[] writes;	//true if the reference at the same index is a write
+	public int[] pids;			//Process ID of each reference, 0 unless the trace is tagged
+	public byte[] kinds;		//REFERENCE, FORK or EXIT, always REFERENCE unless the trace is tagged
+	public int count;			//Number of references in the current batch
+	public int position;		//Index of the current reference
+
+	public TraceReader(){
+		this.addresses = new long[BATCH];
+		this.writes = new boolean[BATCH];
+		this.pids = new int[BATCH];
+		this.kinds = new byte[BATCH];
+		this.count = 0;
+		this.position = 0;
+	}
+
+	/*
+	 * This method opens the trace, binary if it starts with the binary trace header and text otherwise.
+	 * "-", "tcp:PORT" and named pipes are read as a text stream (see StreamTraceReader)
+	 */
+	public static TraceReader open(String fileName) throws IOException{
+		if(StreamTraceReader.isStream(fileName)){
+			return StreamTraceReader.open(fileName,false);	//stdin, a named pipe or a socket
+		}
+		int magic = 0;
+		DataInputStream in = new DataInputStream(new FileInputStream(fileName));
+		try{
+			magic = in.readInt();
+		}catch(IOException e){
+			//shorter than a header, so it can only be text
+		}finally{
+			in.close();
+		}
+		if(magic==TraceFormat.MAGIC){
+			return new BinaryTraceReader(fileName);
+		}
+		return new TextTraceReader(fileName);
+	}
+
+	/*
+	 * This method opens a text trace whose lines start with a process ID, e.g. "3 16916 R"
+	 */
+	public static TraceReader openTagged(String fileName) throws IOException{
+		if(StreamTraceReader.isStream(fileName)){
+			return StreamTraceReader.open(fileName,true);
+		}
+		return new TextTraceReader(fileName,true);
+	}
+
+	/*
+	 * This method reads every address of the trace into one array
+	 */
+	public static long[] readAll(String fileName) throws IOException{
+		TraceReader trace = open(fileName);
+		long[] all = new long[BATCH];
+		int n = 0;
+		while(trace.next()){
+			if(n==all.length){
+				all = Arrays.copyOf(all,all.length*2);
+			}
+			all[n++] = trace.address();
+		}
+		trace.close();
+		return Arrays.copyOf(all,n);
+	}
+
+	/*
+	 * This method moves to the next reference and returns false at the end of the trace
+	 */
+	public boolean next() throws IOException{
+		if(++position>=count){
+			count = fill();
+			position = 0;
+			if(count<=0){
+				count = 0;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * This method skips the first n references of a trace that has not been read yet and
+	 * returns the number skipped, less than n if the trace is shorter. They are read and
+	 * dropped; only BinaryTraceReader seeks, in FIXED traces
+	 */
+	public long skip(long n) throws IOException{
+		long skipped = 0;
+		while(skipped<n && next()){
+			skipped++;
+		}
+		return skipped;
+	}
+
+	/*
+	 * This method returns the address of the current reference
+	 */
+	public long address(){
+		return addresses[position];
+	}
+
+	/*
+	 * This method returns the process ID of the current reference
+	 */
+	public int pid(){
+		return pids[position];
+	}
+
+	/*
+	 * This method returns true if the current line is a process event rather than a reference
+	 */
+	public boolean isEvent(){
+		return kinds[position]!=REFERENCE;
+	}
+
+	/*
+	 * This method returns the process ID of the child if the current event is a fork, -1 otherwise
+	 */
+	public int forkChild(){
+		return (kinds[position]==FORK)? (int)addresses[position] : -1;
+	}
+
+	/*
+	 * This method returns true if the current reference is a write
+	 */
+	public boolean isWrite(){
+		return writes[position];
+	}
+
+	/*
+	 * This method decodes the next batch into addresses and writes and returns its size, 0 at the end
+	 */
+	protected abstract int fill() throws IOException;
+
+	public abstract void close() throws IOException;
+}
@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class TraceWriter {
+
+	/*
+	 * Writes a binary trace (see TraceFormat). The record count in the header is filled in
+	 * by close(). Running this class converts a text trace:
+	 *
+	 * Usage: java TraceWriter addresses.txt addresses.trace [-encoding=delta|fixed]
+	 * */
+
+	public RandomAccessFile file;
+	public FileChannel channel;
+	public ByteBuffer buffer;	//Records waiting to be written
+	public int encoding;
+	public long count;			//Number of records written
+	public long previous;		//Last address written
+
+	public TraceWriter(String fileName,int encoding) throws IOException{
+		this.file = new RandomAccessFile(fileName,"rw");
+		this.file.setLength(0);
+		this.channel = file.getChannel();
+		this.buffer = ByteBuffer.allocateDirect(1<<16);
+		this.encoding = encoding;
+		this.count = 0;
+		this.previous = 0;
+		buffer.position(TraceFormat.HEADER_SIZE);	//header is written by close()
+	}
+
+	public static void main(String[] args){
+		Options options = new Options(args);
+		if(options.count()!=2){
+			System.out.println("Usage: java TraceWriter addresses.txt addresses.trace [-encoding=delta|fixed]");
+			return;
+		}
+		try{
+			int encoding = TraceFormat.encoding(options.get("encoding","delta"));
+			options.checkUsed();
+			TraceReader in = TraceReader.open(options.get(0,null));
+			TraceWriter out = new TraceWriter(options.get(1,null),encoding);
+			while(in.next()){
+				out.write(in.address(),in.isWrite());
+			}
+			in.close();
+			out.close();
+			System.out.println("Converted "+out.count+" references");
+		}catch(IllegalArgumentException e){
+			System.out.println("Error: "+e.getMessage());
+		}catch(IOException e){
+			System.out.println("Error: "+e.getMessage());
+		}
+	}
+
+	/*
+	 * This method appends one reference to the trace
+	 */
+	public void write(long address,boolean write) throws IOException{
+		if(buffer.remaining()<10){
+			drain();
+		}
+		if(encoding==TraceFormat.FIXED){
+			buffer.putLong(TraceFormat.pack(address,write));
+		}else{
+			long record = (TraceFormat.zigzag(address-previous)<<1)|(write?1:0);
+			while((record&~0x7FL)!=0){
+				buffer.put((byte)((record&0x7F)|0x80));
+				record >>>= 7;
+			}
+			buffer.put((byte)record);
+			previous = address;
+		}
+		count++;
+	}
+
+	private void drain() throws IOException{
+		buffer.flip();
+		while(buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/*
+	 * This method writes the remaining records and the header, then closes the file
+	 */
+	public void close() throws IOException{
+		drain();
+		ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE);
+		header.putInt(TraceFormat.MAGIC);
+		header.put((byte)TraceFormat.VERSION);
+		header.put((byte)encoding);
+		header.putShort((short)0);
+		header.putLong(count);
+		header.flip();
+		channel.write(header,0);
+		channel.close();
+		file.close();
+	}
+}
@@ -0,0 +1,68 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class TwoLevelTLB extends TLB {
+
+	/*
+	 * An L1 TLB backed by a second-level TLB, larger and slower, as in most current processors.
+	 * A miss in L1 looks in the second level and, on a hit there, refills L1 from it, so the
+	 * caller sees an ordinary hit. Every insert goes to both levels and an invalidation removes
+	 * the page from both. Several L1 TLBs can share one second level (e.g. the base-page and
+	 * huge-page TLBs, making the second level unified); each adds its own offset to its keys.
+	 * */
+
+	public static int SECOND_WAYS = 8;	//Entries per set of the second level
+
+	public TLB second;			//Second-level TLB
+	public int offset;			//Added to a key of this TLB to get its key in the second level
+	public long secondHits;		//L1 misses that hit in the second level
+
+	public TwoLevelTLB(int size,int ways,int keys,TLB second,int offset){
+		super(size,ways,keys);
+		this.second = second;
+		this.offset = offset;
+	}
+
+	/*
+	 * This method returns a second level of the given size for "keys" keys
+	 */
+	public static TLB secondLevel(int size,int keys){
+		return new TLB(size,Math.min(SECOND_WAYS,size),keys);
+	}
+
+	public int lookup(int pageNumber){
+		int index = super.lookup(pageNumber);
+		if(index!=-1){
+			return index;
+		}
+		int entry = second.lookup(pageNumber+offset);
+		if(entry==-1){
+			return -1;
+		}
+		secondHits++;
+		return super.insert(pageNumber,second.frame[entry]);	//refill L1
+	}
+
+	public int insert(int pageNumber,int frameNumber){
+		second.insert(pageNumber+offset,frameNumber);
+		return super.insert(pageNumber,frameNumber);
+	}
+
+	public void invalidate(int pageNumber){
+		super.invalidate(pageNumber);
+		second.invalidate(pageNumber+offset);
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		super.save(out);
+		second.save(out);
+		out.writeLong(secondHits);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		super.load(in);
+		second.load(in);
+		secondHits = in.getLong();
+	}
+}
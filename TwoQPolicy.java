@@ -0,0 +1,93 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class TwoQPolicy implements ReplacementPolicy {
+
+	/*
+	 * 2Q replacement (Johnson and Shasha). New pages enter the FIFO A1in. Pages evicted from A1in
+	 * are remembered in the ghost FIFO A1out; a fault on a page in A1out promotes it to the LRU
+	 * list Am. This keeps one-time scans from flushing the frequently used pages in Am.
+	 * */
+
+	public static final int A1IN = 0;	//resident, seen once
+	public static final int AM = 1;		//resident, seen again after leaving A1in
+	public static final int A1OUT = 2;	//not resident, page number only
+
+	public PageLists lists;
+	public int kin;		//target size of A1in
+	public int kout;	//maximum size of A1out
+	public int frames;	//number of frames
+	public ColdPages cold;	//Pages loaded ahead of their use, null until the first one
+
+	public TwoQPolicy(int pages,int frames){
+		this.lists = new PageLists(pages,3);
+		this.frames = frames;
+		this.kin = Math.max(1,frames/4);
+		this.kout = Math.max(1,frames/2);
+	}
+
+	public boolean contains(int page){
+		int l = lists.listOf(page);
+		return l==A1IN || l==AM || (cold!=null && cold.contains(page));
+	}
+
+	public void access(int page){
+		if(lists.listOf(page)==AM){
+			lists.pushFront(AM,page);
+		}
+		//a hit in A1in does not change its FIFO order
+	}
+
+	public int evict(int newPage){
+		int victim = (cold!=null)?cold.evict(lists.size[A1IN]+lists.size[AM]>0):-1;
+		if(victim!=-1){
+			return victim;	//never used, so not worth remembering in A1out
+		}
+		if(lists.size[A1IN]+((cold!=null)?cold.size():0)>kin || lists.size[AM]==0){
+			if(lists.size[A1IN]==0){
+				return cold.removeOldest();	//cold pages take the share of A1in
+			}
+			victim = lists.removeLast(A1IN);
+			lists.pushFront(A1OUT,victim);	//remember it
+			if(lists.size[A1OUT]>kout){
+				lists.removeLast(A1OUT);
+			}
+		}else{
+			victim = lists.removeLast(AM);
+		}
+		return victim;
+	}
+
+	public void insert(int page){
+		if(lists.listOf(page)==A1OUT){
+			lists.pushFront(AM,page);
+		}else{
+			lists.pushFront(A1IN,page);
+		}
+	}
+
+	public void insertCold(int page){
+		if(cold==null){
+			cold = new ColdPages(lists.pages,frames);	//only prefetching inserts cold pages
+		}
+		cold.insert(page);	//a page in A1out stays there until it is used
+	}
+
+	public void activate(int page){
+		cold.remove(page);
+		insert(page);
+	}
+
+	public String name(){
+		return "2Q";
+	}
+
+	public void save(DataOutputStream out) throws IOException{
+		lists.save(out);
+	}
+
+	public void load(ByteBuffer in) throws IOException{
+		lists.load(in);
+	}
+}
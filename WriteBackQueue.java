@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBackQueue implements Runnable {
+
+	/*
+	 * Dirty victim pages are queued here and written to the swap area by a background thread.
+	 * The writer drains everything queued so far, sorts it by page number and merges adjacent
+	 * pages into one sequential write. The queue is bounded: when QUEUE_SIZE pages are in flight
+	 * the translation loop waits for the writer to catch up. If the writer fails or dies, the
+	 * error is kept and every later call throws it instead of waiting.
+	 * */
+
+	public static int QUEUE_SIZE = 64;	//Maximum number of dirty pages waiting to be written
+	public static int WAIT_MILLIS = 100;	//How often a full queue checks that the writer is still working
+
+	/*A dirty page waiting to be written. seq keeps the order of two evictions of the same page*/
+	public static class DirtyPage {
+		public int page;
+		public long seq;
+		public byte[] data;
+
+		public DirtyPage(int pageSize){
+			this.data = new byte[pageSize];
+		}
+	}
+
+	public BackingStore backingStore;
+	public int pageSize;
+	public ArrayBlockingQueue<DirtyPage> freePages;		//Recycled page buffers, bounds the pages in flight
+	public ArrayBlockingQueue<DirtyPage> queue;			//Pages waiting for the writer
+	public DirtyPage[] pending;							//Latest queued copy of each page, null if none
+	public DirtyPage[] batch;							//Reusable array for one drained batch
+	public ByteBuffer runBuffer;						//Reusable buffer for one merged write
+	public Thread writer;
+	public long seq;
+	public int inFlight;
+	public IOException error;							//First error seen by the writer
+
+	public long pagesWritten;	//for statistics purpose
+	public long writeCalls;		//number of merged writes issued
+
+	private static final DirtyPage STOP = new DirtyPage(0);
+
+	public WriteBackQueue(BackingStore backingStore){
+		this.backingStore = backingStore;
+		this.pageSize = backingStore.pageSize;
+		this.freePages = new ArrayBlockingQueue<DirtyPage>(QUEUE_SIZE);
+		this.queue = new ArrayBlockingQueue<DirtyPage>(QUEUE_SIZE+1);
+		this.pending = new DirtyPage[backingStore.pageCount()];
+		this.batch = new DirtyPage[QUEUE_SIZE];
+		this.runBuffer = ByteBuffer.allocateDirect(QUEUE_SIZE*pageSize);
+		for(int i=0;i<QUEUE_SIZE;i++){
+			freePages.add(new DirtyPage(pageSize));
+		}
+		this.writer = new Thread(this,"write-back");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/*
+	 * This method queues one page of memory to be written back to the swap area.
+	 * It only blocks if the queue is full
+	 */
+	public void enqueue(int pageNumber,PhysicalMemory memory,long start) throws IOException{
+		DirtyPage dp = take();
+		memory.store(start,dp.data);
+		add(pageNumber,dp);
+	}
+
+	/*
+	 * This method queues a copy of the page held in data, e.g. one the compressed swap tier evicts
+	 */
+	public void enqueue(int pageNumber,byte[] data) throws IOException{
+		DirtyPage dp = take();
+		System.arraycopy(data,0,dp.data,0,pageSize);
+		add(pageNumber,dp);
+	}
+
+	private DirtyPage take() throws IOException{
+		try{
+			while(true){
+				checkError();
+				DirtyPage dp = freePages.poll(WAIT_MILLIS,TimeUnit.MILLISECONDS);
+				if(dp!=null){
+					return dp;
+				}
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for write-back");
+		}
+	}
+
+	private void add(int pageNumber,DirtyPage dp){
+		dp.page = pageNumber;
+		synchronized(this){
+			dp.seq = seq++;
+			pending[pageNumber] = dp;
+			inFlight++;
+		}
+		queue.add(dp);
+	}
+
+	/*
+	 * This method reads a page into memory. A copy still waiting in the queue is newer than
+	 * the swap area, so it is used instead
+	 */
+	public void readPage(int pageNumber,PhysicalMemory memory,long start){
+		synchronized(this){
+			DirtyPage dp = pending[pageNumber];
+			if(dp!=null){
+				memory.load(start,dp.data);
+				return;
+			}
+		}
+		backingStore.readPage(pageNumber,memory,start);
+	}
+
+	/*
+	 * This method waits until every queued page has been written
+	 */
+	public synchronized void flush() throws IOException{
+		while(inFlight>0 && error==null){
+			try{
+				wait();
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while flushing write-back");
+			}
+		}
+		checkError();
+	}
+
+	/*
+	 * This method flushes the queue and stops the writer thread
+	 */
+	public void close() throws IOException{
+		try{
+			flush();
+		}finally{
+			queue.add(STOP);
+			try{
+				writer.join();
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public void run(){
+		boolean stopped = false;
+		try{
+			while(true){
+				DirtyPage first = queue.take();
+				if(first==STOP){
+					stopped = true;
+					return;
+				}
+				batch[0] = first;
+				int count = 1;
+				boolean stop = false;
+				while(count<batch.length){
+					DirtyPage next = queue.poll();
+					if(next==null){
+						break;
+					}
+					if(next==STOP){
+						stop = true;
+						break;
+					}
+					batch[count++] = next;
+				}
+				writeBatch(count);
+				if(stop){
+					stopped = true;
+					return;
+				}
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}catch(Throwable e){
+			fail(e);
+		}finally{
+			if(!stopped){
+				fail(new IOException("Write-back thread stopped"));	//wakes up flush()
+			}
+		}
+	}
+
+	/*
+	 * This method writes a drained batch. Runs of adjacent pages are merged into one write;
+	 * if a page was queued twice only the later copy is written
+	 */
+	private void writeBatch(int count){
+		Arrays.sort(batch,0,count,ORDER);
+		try{
+			int i = 0;
+			while(i<count){
+				int runStart = batch[i].page;
+				int runEnd = runStart;
+				runBuffer.clear();
+				while(i<count && batch[i].page==runEnd){
+					if(i+1<count && batch[i+1].page==batch[i].page){
+						i++;	//a newer copy of the same page follows
+						continue;
+					}
+					runBuffer.put(batch[i].data);
+					runEnd = batch[i].page+1;
+					i++;
+				}
+				runBuffer.flip();
+				backingStore.writePages(runStart,runBuffer);
+				writeCalls++;
+				pagesWritten += runEnd-runStart;
+			}
+		}catch(Throwable e){
+			fail(e);
+		}finally{
+			synchronized(this){
+				for(int j=0;j<count;j++){
+					DirtyPage dp = batch[j];
+					if(pending[dp.page]==dp){
+						pending[dp.page] = null;
+					}
+					batch[j] = null;
+					inFlight--;
+					freePages.add(dp);
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/*
+	 * This method keeps the first error of the writer, as an IOException, and wakes up flush()
+	 */
+	private synchronized void fail(Throwable e){
+		if(error==null){
+			error = (e instanceof IOException)?(IOException)e:new IOException("Write-back failed: "+e,e);
+		}
+		notifyAll();
+	}
+
+	private synchronized void checkError() throws IOException{
+		if(error!=null){
+			throw error;
+		}
+	}
+
+	private static final Comparator<DirtyPage> ORDER = new Comparator<DirtyPage>(){
+		public int compare(DirtyPage a,DirtyPage b){
+			if(a.page!=b.page){
+				return Integer.compare(a.page,b.page);
+			}
+			return Long.compare(a.seq,b.seq);
+		}
+	};
+}
@@ -0,0 +1,9 @@
+#!/bin/sh
+# Builds the benchmarks and runs them, saving the JMH results as JSON in bench/results/
+# so runs can be compared over time. Extra arguments are passed to JMH, e.g.
+#   bench/run.sh ThroughputBenchmark -p frames=128
+cd "$(dirname "$0")/.." || exit 1
+mvn -B -q package -DskipTests || exit 1
+mkdir -p bench/results
+RESULT="bench/results/$(date +%Y%m%d-%H%M%S)-$(git rev-parse --short HEAD 2>/dev/null || echo local).json"
+java -jar bench/target/benchmarks.jar -rf json -rff "$RESULT" "$@" && echo "Results saved to $RESULT"
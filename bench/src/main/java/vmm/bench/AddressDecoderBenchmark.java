@@ -0,0 +1,69 @@
+package vmm.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vmm.AddressDecoder;
+import vmm.Modification;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+public class AddressDecoderBenchmark {
+
+	/*
+	 * The cost per address of the old String based decoding (toFixedBinary and getBitRange)
+	 * against AddressDecoder, one 16-bit address per operation.
+	 * */
+
+	@Param({"1000000"})
+	public int count;
+
+	public AddressDecoder decoder;
+	public int[] addresses;
+	public int cursor;
+
+	@Setup
+	public void setup(){
+		decoder = AddressDecoder.forSizes(Modification.PRESET.pages,Modification.PRESET.frameSize);
+		addresses = new int[count];
+		Random random = new Random(42);
+		for(int i=0;i<count;i++){
+			addresses[i] = random.nextInt(1<<16);
+		}
+		cursor = 0;
+	}
+
+	public int next(){
+		int address = addresses[cursor];
+		cursor = (cursor+1==addresses.length)? 0 : cursor+1;
+		return address;
+	}
+
+	@Benchmark
+	public long strings(){
+		String binaryNumber = Integer.toBinaryString(0x10000|next()).substring(1);
+		return Integer.parseInt(binaryNumber.substring(0,8),2)+Integer.parseInt(binaryNumber.substring(8,16),2);
+	}
+
+	@Benchmark
+	public long masks(){
+		int address = next();
+		return decoder.page(address)+decoder.offset(address);
+	}
+}
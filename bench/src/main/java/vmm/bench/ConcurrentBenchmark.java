@@ -0,0 +1,80 @@
+package vmm.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vmm.BackingStore;
+import vmm.ConcurrentManager;
+import vmm.SimulatorConfig;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=2,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+public class ConcurrentBenchmark {
+
+	/*
+	 * ConcurrentManager.run translating one synthetic trace on a growing number of cores.
+	 * The "addresses" counter is the throughput in addresses per second; on a machine with
+	 * enough hardware threads it should grow close to linearly with the threads parameter.
+	 * */
+
+	@Param({"1","2","4","8","16"})
+	public int threads;
+
+	@Param({"uniform","zipf"})
+	public String pattern;
+
+	@Param({"128"})
+	public int frames;
+
+	@Param({"1000000"})
+	public int traceLength;
+
+	public long[] addresses;
+	public ConcurrentManager vm;
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long addresses;
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException{
+		SimulatorConfig config = ConcurrentManager.PRESET.toBuilder().frames(frames).build();
+		String store = SyntheticTrace.createBackingStore(config.pages,config.frameSize);
+		addresses = SyntheticTrace.generate(pattern,traceLength,config.pages,config.frameSize,1);
+		vm = new ConcurrentManager(config);
+		vm.backingStore = new BackingStore(store,config.frameSize,false);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException{
+		vm.backingStore.close();
+	}
+
+	@Benchmark
+	public ConcurrentManager run(Counters counters) throws InterruptedException{
+		vm.run(addresses,threads);
+		counters.addresses += traceLength;
+		return vm;
+	}
+}
@@ -0,0 +1,70 @@
+package vmm.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vmm.BackingStore;
+import vmm.Engine;
+import vmm.Modification;
+import vmm.SimulatorConfig;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+public class PageFaultBenchmark {
+
+	/*
+	 * Engine.handlePageFault with the Modification preset, one fault per operation: victim selection, TLB
+	 * invalidation and the page-in from the swap area. Pages are faulted in a cycle one
+	 * longer than the number of frames, so every page is evicted before it comes back.
+	 * */
+
+	@Param({"32","128"})
+	public int frames;
+
+	@Param({"lru","clock","2q","arc"})
+	public String policy;
+
+	public Engine vm;
+	public int page;
+
+	@Setup
+	public void setup() throws IOException{
+		SimulatorConfig config = Modification.PRESET.toBuilder().frames(frames).tlbSize(16).tlbWays(0).policy(policy).build();
+		vm = new Engine(config);
+		String store = SyntheticTrace.createBackingStore(config.pages,config.frameSize);
+		vm.backingStore = new BackingStore(store,config.frameSize,false);
+		page = 0;
+	}
+
+	@Benchmark
+	public int fault() throws IOException{
+		int p = page;
+		while(vm.policy.contains(p)){
+			p = (p+1)%(frames+1);	//skip pages a non-LRU policy kept
+		}
+		page = (p+1)%(frames+1);
+		return vm.handlePageFault(p);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException{
+		vm.backingStore.close();
+	}
+}
@@ -0,0 +1,118 @@
+package vmm.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import vmm.TraceFormat;
+import vmm.TraceWriter;
+
+public class SyntheticTrace {
+
+	/*
+	 * Generates the reference patterns used by the benchmarks:
+	 *
+	 *   sequential  walks the address space 64 bytes at a time, wrapping at the end
+	 *   uniform     picks every address uniformly at random
+	 *   zipf        picks pages with a Zipfian distribution (s = 0.99), hot pages first
+	 *   loop        walks a working set of 5/8 of the pages over and over, the worst case for LRU
+	 * */
+
+	public static final String[] PATTERNS = {"sequential","uniform","zipf","loop"};
+
+	/*
+	 * This method returns length addresses following the named pattern
+	 */
+	public static long[] generate(String pattern,int length,int pages,int frameSize,long seed){
+		long[] addresses = new long[length];
+		long space = (long)pages*frameSize;
+		Random random = new Random(seed);
+		switch(pattern){
+		case "sequential":
+			for(int i=0;i<length;i++){
+				addresses[i] = ((long)i*64)%space;
+			}
+			break;
+		case "uniform":
+			for(int i=0;i<length;i++){
+				addresses[i] = (long)(random.nextDouble()*space);
+			}
+			break;
+		case "zipf":
+			double[] cdf = zipfCdf(pages,0.99);
+			for(int i=0;i<length;i++){
+				int page = search(cdf,random.nextDouble());
+				addresses[i] = (long)page*frameSize+random.nextInt(frameSize);
+			}
+			break;
+		case "loop":
+			long loop = Math.max(1,pages*5/8)*(long)frameSize;
+			for(int i=0;i<length;i++){
+				addresses[i] = ((long)i*64)%loop;
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown pattern: "+pattern);
+		}
+		return addresses;
+	}
+
+	/*
+	 * This method writes the addresses as a binary trace in a temporary file and returns its path
+	 */
+	public static String writeTrace(long[] addresses) throws IOException{
+		File file = File.createTempFile("synthetic",".trace");
+		file.deleteOnExit();
+		TraceWriter out = new TraceWriter(file.getPath(),TraceFormat.DELTA);
+		for(int i=0;i<addresses.length;i++){
+			out.write(addresses[i],false);
+		}
+		out.close();
+		return file.getPath();
+	}
+
+	/*
+	 * This method creates a swap area of random bytes in a temporary file and returns its path
+	 */
+	public static String createBackingStore(int pages,int frameSize) throws IOException{
+		File file = File.createTempFile("backing",".bin");
+		file.deleteOnExit();
+		byte[] data = new byte[pages*frameSize];
+		new Random(7).nextBytes(data);
+		RandomAccessFile out = new RandomAccessFile(file,"rw");
+		out.write(data);
+		out.close();
+		return file.getPath();
+	}
+
+	private static double[] zipfCdf(int n,double s){
+		double[] cdf = new double[n];
+		double sum = 0;
+		for(int i=0;i<n;i++){
+			sum += 1.0/Math.pow(i+1,s);
+			cdf[i] = sum;
+		}
+		for(int i=0;i<n;i++){
+			cdf[i] /= sum;
+		}
+		return cdf;
+	}
+
+	/*
+	 * This method returns the first index whose cumulative probability is at least p
+	 */
+	private static int search(double[] cdf,double p){
+		int low = 0;
+		int high = cdf.length-1;
+		while(low<high){
+			int mid = (low+high)>>>1;
+			if(cdf[mid]<p){
+				low = mid+1;
+			}else{
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
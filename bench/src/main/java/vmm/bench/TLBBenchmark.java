@@ -0,0 +1,68 @@
+package vmm.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vmm.Engine;
+import vmm.Modification;
+import vmm.SimulatorConfig;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+public class TLBBenchmark {
+
+	/*
+	 * searchTLB followed by updateTLB on a miss, one reference per operation.
+	 * */
+
+	@Param({"16","64","256","1024"})
+	public int tlbSize;
+
+	@Param({"sequential","uniform","zipf","loop"})
+	public String pattern;
+
+	@Param({"100000"})
+	public int traceLength;
+
+	public Engine vm;
+	public int[] pages;		//page number of each reference
+	public int cursor;
+
+	@Setup
+	public void setup(){
+		SimulatorConfig config = Modification.PRESET.toBuilder().tlbSize(tlbSize).tlbWays(0).build();
+		vm = new Engine(config);
+		long[] addresses = SyntheticTrace.generate(pattern,traceLength,config.pages,config.frameSize,1);
+		pages = new int[addresses.length];
+		for(int i=0;i<addresses.length;i++){
+			pages[i] = (int)vm.decoder.page(addresses[i]);
+		}
+		cursor = 0;
+	}
+
+	@Benchmark
+	public int lookup(){
+		int page = pages[cursor];
+		cursor = (cursor+1==pages.length)? 0 : cursor+1;
+		int index = vm.searchTLB(page);
+		if(index==-1){
+			index = vm.updateTLB(page%vm.frames,page);
+		}
+		return index;
+	}
+}
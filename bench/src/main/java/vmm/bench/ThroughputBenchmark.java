@@ -0,0 +1,90 @@
+package vmm.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vmm.Engine;
+import vmm.Modification;
+import vmm.SimulatorConfig;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=2,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+public class ThroughputBenchmark {
+
+	/*
+	 * End-to-end Engine.readAddressesFromFile with the Modification preset on a synthetic binary trace with the
+	 * output switched off. The "addresses" counter is the throughput in addresses per second. Every run needs a
+	 * fresh engine, which is built before the run and not measured.
+	 * */
+
+	@Param({"sequential","uniform","zipf","loop"})
+	public String pattern;
+
+	@Param({"32","128"})
+	public int frames;
+
+	@Param({"16","64"})
+	public int tlbSize;
+
+	@Param({"100000","1000000"})
+	public int traceLength;
+
+	public String trace;
+	public SimulatorConfig config;
+	public Engine vm;
+	public PrintStream console;
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long addresses;
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException{
+		SimulatorConfig preset = Modification.PRESET;
+		String store = SyntheticTrace.createBackingStore(preset.pages,preset.frameSize);
+		config = preset.toBuilder().frames(frames).tlbSize(tlbSize).tlbWays(0).backingStore(store).output("none").build();
+		trace = SyntheticTrace.writeTrace(SyntheticTrace.generate(pattern,traceLength,config.pages,config.frameSize,1));
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));	//hide the statistics printed per run
+	}
+
+	@Setup(Level.Invocation)
+	public void createEngine(){
+		vm = new Engine(config);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public Engine run(Counters counters){
+		vm.readAddressesFromFile(trace);
+		counters.addresses += traceLength;
+		return vm;
+	}
+}